@@ -0,0 +1,88 @@
+package academy.devdojo.springboot2.benchmark;
+
+import academy.devdojo.springboot2.client.AnimeClient;
+import academy.devdojo.springboot2.client.AnimeClientOptions;
+import academy.devdojo.springboot2.domain.Anime;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /animes/{id} through the SpringClient pattern (a new RestTemplate per call), a shared RestTemplate and
+ * AnimeClient, against a local stub server that answers a fixed body, so the difference is the client side cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Threads(8)
+@State(Scope.Benchmark)
+public class AnimeClientBenchmark {
+    private static final byte[] BODY = "{\"id\":12,\"name\":\"Hajime no Ippo\",\"version\":0}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String url;
+    private RestTemplate sharedRestTemplate;
+    private AnimeClient animeClient;
+
+    @Setup
+    public void setUp() throws IOException {
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 256);
+        server.setExecutor(serverExecutor);
+        server.createContext("/animes/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(BODY);
+            }
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort();
+        sharedRestTemplate = new RestTemplate();
+        animeClient = new AnimeClient(AnimeClientOptions.builder().baseUrl(url).build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        animeClient.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public Anime restTemplatePerCall() {
+        return new RestTemplate().getForObject(url + "/animes/{id}", Anime.class, 12);
+    }
+
+    @Benchmark
+    public Anime sharedRestTemplate() {
+        return sharedRestTemplate.getForObject(url + "/animes/{id}", Anime.class, 12);
+    }
+
+    @Benchmark
+    public Anime animeClient() {
+        return animeClient.findById(12);
+    }
+}
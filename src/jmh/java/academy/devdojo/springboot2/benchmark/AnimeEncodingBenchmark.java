@@ -0,0 +1,119 @@
+package academy.devdojo.springboot2.benchmark;
+
+import academy.devdojo.springboot2.converter.AnimeProtobuf;
+import academy.devdojo.springboot2.domain.Anime;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import wrapper.PageableResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU per response of a GET /animes page in every format the API negotiates, written the way the server writes it
+ * and read the way {@link academy.devdojo.springboot2.client.AnimeClient} reads it. The body sizes, plain and
+ * gzipped, are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnimeEncodingBenchmark {
+    @Param({"JSON", "SMILE", "CBOR", "PROTOBUF"})
+    private String format;
+
+    @Param({"20", "100"})
+    private int size;
+
+    private Page<Anime> animePage;
+    private ObjectMapper mapper;
+    private JavaType pageType;
+    private byte[] body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<Anime> animes = LongStream.rangeClosed(1, size)
+                .mapToObj(id -> Anime.builder().id(id).name("Hajime no Ippo " + id).version(0L).build())
+                .collect(Collectors.toList());
+        animePage = new PageImpl<>(animes, PageRequest.of(0, size), size * 10L);
+        mapper = mapper(format);
+        pageType = Jackson2ObjectMapperBuilder.json().build().getTypeFactory()
+                .constructParametricType(PageableResponse.class, Anime.class);
+        body = write();
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(body);
+        }
+        System.out.println();
+        System.out.println(format + " page of " + size + ": " + body.length + " bytes, " + gzipped.size() + " gzipped");
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        if (mapper != null) {
+            return mapper.writeValueAsBytes(animePage);
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(outputStream);
+        AnimeProtobuf.writePage(animePage, output);
+        output.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeGzipped() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(outputStream)) {
+            gzip.write(write());
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public Page<Anime> read() throws IOException {
+        if (mapper != null) {
+            return mapper.readValue(body, pageType);
+        }
+        return AnimeProtobuf.readPage(CodedInputStream.newInstance(body));
+    }
+
+    private static ObjectMapper mapper(String format) {
+        switch (format) {
+            case "JSON":
+                return Jackson2ObjectMapperBuilder.json().build();
+            case "SMILE":
+                return Jackson2ObjectMapperBuilder.smile().build();
+            case "CBOR":
+                return Jackson2ObjectMapperBuilder.cbor().build();
+            default:
+                return null;
+        }
+    }
+}
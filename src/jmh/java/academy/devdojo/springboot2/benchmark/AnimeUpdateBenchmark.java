@@ -0,0 +1,112 @@
+package academy.devdojo.springboot2.benchmark;
+
+import academy.devdojo.springboot2.Springboot2EssentialsApplication;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.requests.AnimePatchRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.service.AnimeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Latency of PUT and PATCH /animes over an in-memory H2. selectThenSave and singleUpdate compare the old and the
+ * new statements on the repository alone, replace and patch add what the service wraps around the UPDATE
+ * (bulkhead, cache eviction and the change event the search index consumes).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 6, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.security.egd=file:/dev/./urandom")
+@State(Scope.Benchmark)
+public class AnimeUpdateBenchmark {
+    private static final int ANIMES = 1000;
+
+    private ConfigurableApplicationContext context;
+    private AnimeRepository animeRepository;
+    private AnimeService animeService;
+    private TransactionTemplate transactionTemplate;
+    private long firstId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(Springboot2EssentialsApplication.class);
+        application.initializers(applicationContext -> applicationContext.getBeanFactory()
+                .registerSingleton("testClassesExcludeFilter", new ServingStackBenchmark.TestClassesExcludeFilter()));
+        context = application.run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:update;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn");
+
+        animeRepository = context.getBean(AnimeRepository.class);
+        animeService = context.getBean(AnimeService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        firstId = animeRepository.saveAll(IntStream.range(0, ANIMES)
+                .mapToObj(i -> Anime.builder().name("Anime " + i).build())
+                .collect(Collectors.toList())).get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Anime selectThenSave() {
+        long id = randomId();
+        String name = randomName();
+        return transactionTemplate.execute(status -> {
+            Anime anime = animeRepository.findById(id).orElseThrow();
+            anime.setName(name);
+            return animeRepository.save(anime);
+        });
+    }
+
+    @Benchmark
+    public Integer singleUpdate() {
+        long id = randomId();
+        String name = randomName();
+        return transactionTemplate.execute(status -> animeRepository.updateName(id, name));
+    }
+
+    @Benchmark
+    public Long replace() {
+        return animeService.replace(AnimePutRequestBody.builder().id(randomId()).name(randomName()).build(), null);
+    }
+
+    @Benchmark
+    public Long patch() {
+        return animeService.update(randomId(), AnimePatchRequestBody.builder().name(randomName()).build(), null);
+    }
+
+    private long randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(ANIMES);
+    }
+
+    private static String randomName() {
+        return "Anime " + ThreadLocalRandom.current().nextInt();
+    }
+}
@@ -0,0 +1,71 @@
+package academy.devdojo.springboot2.benchmark;
+
+import academy.devdojo.springboot2.security.AuthenticationCache;
+import academy.devdojo.springboot2.security.CachingAuthenticationProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP Basic authentication of one user, straight through BCrypt and through the authentication cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+    private AuthenticationManager bcryptAuthenticationManager;
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        InMemoryUserDetailsManager userDetailsManager = new InMemoryUserDetailsManager(User.withUsername("devdojo")
+                .password(passwordEncoder.encode("academy"))
+                .roles("USER")
+                .build());
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        daoAuthenticationProvider.setUserDetailsService(userDetailsManager);
+
+        bcryptAuthenticationManager = new ProviderManager(Collections.singletonList(daoAuthenticationProvider));
+        cachingAuthenticationProvider = new CachingAuthenticationProvider(bcryptAuthenticationManager,
+                new AuthenticationCache(60, 10_000, new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public Authentication bcrypt() {
+        return bcryptAuthenticationManager.authenticate(token());
+    }
+
+    @Benchmark
+    public Authentication cached() {
+        return cachingAuthenticationProvider.authenticate(token());
+    }
+
+    private static Authentication token() {
+        return new UsernamePasswordAuthenticationToken("devdojo", "academy");
+    }
+}
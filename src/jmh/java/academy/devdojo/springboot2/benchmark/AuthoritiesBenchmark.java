@@ -0,0 +1,47 @@
+package academy.devdojo.springboot2.benchmark;
+
+import academy.devdojo.springboot2.domain.DevdojoUser;
+import academy.devdojo.springboot2.security.DevdojoUserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DevdojoUser splits its authorities string on every call, the cached DevdojoUserDetails snapshot does it once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthoritiesBenchmark {
+    private final DevdojoUser devdojoUser = DevdojoUser.builder()
+            .id(1L)
+            .name("Leonardo Campos")
+            .username("leonardo")
+            .password("{noop}academy")
+            .authorities("ROLE_USER,ROLE_ADMIN")
+            .build();
+    private final DevdojoUserDetails devdojoUserDetails = DevdojoUserDetails.of(devdojoUser);
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> devdojoUserGetAuthorities() {
+        return devdojoUser.getAuthorities();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> devdojoUserDetailsGetAuthorities() {
+        return devdojoUserDetails.getAuthorities();
+    }
+}
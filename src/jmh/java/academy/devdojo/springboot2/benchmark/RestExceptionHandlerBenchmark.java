@@ -0,0 +1,120 @@
+package academy.devdojo.springboot2.benchmark;
+
+import academy.devdojo.springboot2.controller.AnimeController;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
+import academy.devdojo.springboot2.handler.RestExceptionHandler;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the error bodies, the exceptions are created once so only the handlers are measured.
+ * The throwAndHandle benchmarks throw from depth frames down, close to what Tomcat, the filter chain and
+ * Spring MVC put under a controller, comparing a stack capturing exception with the shared stackless one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RestExceptionHandlerBenchmark {
+    private final RestExceptionHandler restExceptionHandler = new RestExceptionHandler();
+    private final BadRequestException badRequestException = new BadRequestException("Anime not found");
+    private final PreconditionFailedException preconditionFailedException =
+            new PreconditionFailedException("Anime was modified after version 1");
+    private final HttpRequestMethodNotSupportedException methodNotSupportedException =
+            new HttpRequestMethodNotSupportedException("PATCH");
+    private MethodArgumentNotValidException methodArgumentNotValidException;
+    private WebRequest webRequest;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        AnimePostRequestBody animePostRequestBody = new AnimePostRequestBody("");
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(animePostRequestBody, "animePostRequestBody");
+        bindingResult.rejectValue("name", "NotEmpty", "The anime name cannot be empty");
+        MethodParameter methodParameter = new MethodParameter(
+                AnimeController.class.getMethod("save", AnimePostRequestBody.class), 0);
+        methodArgumentNotValidException = new MethodArgumentNotValidException(methodParameter, bindingResult);
+        webRequest = new ServletWebRequest(new MockHttpServletRequest("POST", "/animes"), new MockHttpServletResponse());
+    }
+
+    @Benchmark
+    public ResponseEntity<?> handleBadRequestException() {
+        return restExceptionHandler.handleBadRequestException(badRequestException);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> handlePreconditionFailedException() {
+        return restExceptionHandler.handlePreconditionFailedException(preconditionFailedException);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> handleMethodArgumentNotValid() throws Exception {
+        return restExceptionHandler.handleException(methodArgumentNotValidException, webRequest);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> handleMethodNotSupported() throws Exception {
+        return restExceptionHandler.handleException(methodNotSupportedException, webRequest);
+    }
+
+    /**
+     * What BadRequestException used to be, a RuntimeException filling in its stack trace on every throw.
+     * The handler gets the same preallocated exception in both benchmarks, only the throw differs.
+     */
+    @Benchmark
+    public ResponseEntity<?> throwAndHandleStackTrace(StackDepth stackDepth) {
+        try {
+            throwAt(stackDepth.depth, true);
+        } catch (RuntimeException e) {
+            return restExceptionHandler.handleBadRequestException(badRequestException);
+        }
+        throw new IllegalStateException();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> throwAndHandleStackless(StackDepth stackDepth) {
+        try {
+            throwAt(stackDepth.depth, false);
+        } catch (RuntimeException e) {
+            return restExceptionHandler.handleBadRequestException(badRequestException);
+        }
+        throw new IllegalStateException();
+    }
+
+    private static void throwAt(int depth, boolean stackTrace) {
+        if (depth > 0) {
+            throwAt(depth - 1, stackTrace);
+            return;
+        }
+        throw stackTrace ? new RuntimeException("Anime not found") : BadRequestException.animeNotFound();
+    }
+
+    @State(Scope.Benchmark)
+    public static class StackDepth {
+        @Param({"10", "100"})
+        private int depth;
+    }
+}
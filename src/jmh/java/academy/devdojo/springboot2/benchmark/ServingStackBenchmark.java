@@ -0,0 +1,220 @@
+package academy.devdojo.springboot2.benchmark;
+
+import academy.devdojo.springboot2.Springboot2EssentialsApplication;
+import academy.devdojo.springboot2.client.AnimeClient;
+import academy.devdojo.springboot2.client.AnimeClientOptions;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Publisher;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.ReflectionUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The whole application on the servlet (Tomcat + JPA) and the reactive (Netty + R2DBC) stack over an in-memory H2,
+ * called by 128 client threads through {@link AnimeClient}. After each trial the server side threads are printed
+ * grouped by pool, the reactive stack should serve the same load from a handful of event loop threads.
+ * dbLatencyMillis stands in for a database across the network: every repository call first sleeps on the servlet
+ * stack, holding its thread and connection, and is subscribed to that much later on the reactive stack, holding nothing.
+ * The anime cache, admission control and the bulkhead limits are switched off or sized for the 128 clients, so both
+ * stacks reach the database on every request and only the way they wait for it differs.
+ * The reactive stack is only built with the reactive Maven profile: ./mvnw -P benchmarks,reactive test,
+ * without it pass -p stack=servlet.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.security.egd=file:/dev/./urandom")
+@Threads(128)
+@State(Scope.Benchmark)
+public class ServingStackBenchmark {
+    private static final int ANIMES = 1000;
+
+    @Param({"servlet", "reactive"})
+    private String stack;
+
+    @Param({"0", "5", "50"})
+    private long dbLatencyMillis;
+
+    private ConfigurableApplicationContext context;
+    private AnimeClient animeClient;
+    private long firstId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String database = "serving-" + stack;
+        SpringApplicationBuilder application = new SpringApplicationBuilder(Springboot2EssentialsApplication.class);
+        if (stack.equals("reactive")) {
+            application.profiles("reactive");
+        }
+        // the test classes share the benchmark classpath, their @Configuration classes must stay out of the scan
+        application.initializers(applicationContext -> applicationContext.getBeanFactory()
+                .registerSingleton("testClassesExcludeFilter", new TestClassesExcludeFilter()));
+        if (dbLatencyMillis > 0) {
+            application.initializers(applicationContext -> applicationContext.getBeanFactory()
+                    .addBeanPostProcessor(new DatabaseLatencyPostProcessor(Duration.ofMillis(dbLatencyMillis))));
+        }
+        // arguments rather than default properties, those lose against application.yml
+        context = application.run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///" + database + "?options=DB_CLOSE_DELAY=-1",
+                "--spring.r2dbc.username=sa",
+                "--spring.r2dbc.password=",
+                // the H2 driver runs queries on the calling thread, pooled it drains every waiting request on one thread
+                "--spring.r2dbc.pool.enabled=false",
+                "--spring.datasource.hikari.maximum-pool-size=136",
+                "--spring.cache.type=none",
+                "--devdojo.admission.enabled=false",
+                "--devdojo.bulkhead.limits.reads.max-concurrent=128",
+                "--devdojo.bulkhead.limits.reads.acquire-timeout=60s",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn");
+
+        AnimeRepository animeRepository = context.getBean(AnimeRepository.class);
+        List<Anime> animes = animeRepository.saveAll(IntStream.range(0, ANIMES)
+                .mapToObj(i -> Anime.builder().name("Anime " + i).build())
+                .collect(Collectors.toList()));
+        firstId = animes.get(0).getId();
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        animeClient = new AnimeClient(AnimeClientOptions.builder()
+                .baseUrl("http://localhost:" + port)
+                .username("devdojo2")
+                .password("academy")
+                .maxConnections(128)
+                .requestTimeout(Duration.ofSeconds(30))
+                .build());
+        // one call fills the authentication cache, otherwise every thread runs BCrypt on its first request
+        animeClient.findById(firstId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println();
+        System.out.println(stack + " server threads by pool: " + serverThreads());
+        animeClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public Anime findById() {
+        return animeClient.findById(firstId + ThreadLocalRandom.current().nextInt(ANIMES));
+    }
+
+    @Benchmark
+    public Page<Anime> list() {
+        return animeClient.list(ThreadLocalRandom.current().nextInt(ANIMES / 20), 20);
+    }
+
+    static class TestClassesExcludeFilter extends TypeExcludeFilter {
+        @Override
+        public boolean match(MetadataReader metadataReader, MetadataReaderFactory metadataReaderFactory) {
+            String className = metadataReader.getClassMetadata().getClassName();
+            String outerClassName = className.contains("$") ? className.substring(0, className.indexOf('$')) : className;
+            return outerClassName.endsWith("Test") || outerClassName.endsWith("It");
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other != null && getClass() == other.getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+    }
+
+    /**
+     * Adds the latency to every call of the application's repositories, the JPA ones and {@code AnimeReactiveRepository}.
+     * Blocking calls sleep before running the query, calls returning a Mono or a Flux are subscribed to later.
+     */
+    static class DatabaseLatencyPostProcessor implements BeanPostProcessor {
+        private final MethodInterceptor latencyInterceptor;
+
+        DatabaseLatencyPostProcessor(Duration latency) {
+            this.latencyInterceptor = invocation -> {
+                if (ReflectionUtils.isObjectMethod(invocation.getMethod())) {
+                    return invocation.proceed();
+                }
+                if (!Publisher.class.isAssignableFrom(invocation.getMethod().getReturnType())) {
+                    Thread.sleep(latency.toMillis());
+                    return invocation.proceed();
+                }
+                Object result = invocation.proceed();
+                if (result instanceof Mono) {
+                    return ((Mono<?>) result).delaySubscription(latency);
+                }
+                return result instanceof Flux ? ((Flux<?>) result).delaySubscription(latency) : result;
+            };
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            boolean repository = bean instanceof org.springframework.data.repository.Repository
+                    || AnnotatedElementUtils.hasAnnotation(AopUtils.getTargetClass(bean), Repository.class);
+            if (!repository) {
+                return bean;
+            }
+            if (bean instanceof Advised) {
+                ((Advised) bean).addAdvice(0, latencyInterceptor);
+                return bean;
+            }
+            ProxyFactory proxyFactory = new ProxyFactory(bean);
+            proxyFactory.setProxyTargetClass(true);
+            proxyFactory.addAdvice(latencyInterceptor);
+            return proxyFactory.getProxy();
+        }
+    }
+
+    /**
+     * Live threads named like a pool, "http-nio-exec-12" counts as "http-nio-exec", the client and JMH threads are left out.
+     */
+    private static Map<String, Long> serverThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .map(thread -> thread.getName().replaceAll("[-#]?\\d+", ""))
+                .filter(name -> !name.startsWith("anime-client") && !name.contains("jmh"))
+                .collect(Collectors.groupingBy(name -> name, TreeMap::new, Collectors.counting()));
+    }
+}
@@ -0,0 +1,102 @@
+package academy.devdojo.springboot2.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows the latency of the requests it admits, after the gradient limiter of
+ * Netflix concurrency-limits. A short and a long moving average of the request latency are compared,
+ * while the short one stays within the tolerance the limit grows by its square root, the expected queue,
+ * and once requests slow down it shrinks in proportion. Requests that ended in 503 are treated as drops
+ * and cut the limit multiplicatively, the AIMD backoff.
+ */
+public class AdaptiveConcurrencyLimit {
+    private static final double SHORT_SMOOTHING = 0.1;
+    private static final double LONG_SMOOTHING = 0.01;
+    private static final double LIMIT_SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+    // guarded by this
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * @param reserved permits of the limit the caller may not use
+     * @return the number of requests in flight before this one, -1 when it is rejected
+     */
+    public int tryAcquire(int reserved) {
+        int available = getLimit() - reserved;
+        while (true) {
+            int current = inflight.get();
+            if (current >= available) {
+                return -1;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Gives the permit back without a latency sample, for requests whose duration says nothing about the backend.
+     */
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    /**
+     * Gives the permit back and adjusts the limit to the latency of the request.
+     *
+     * @param inflightAtStart what {@link #tryAcquire(int)} returned
+     */
+    public void release(long rttNanos, int inflightAtStart, boolean dropped) {
+        inflight.decrementAndGet();
+        update(rttNanos, inflightAtStart, dropped);
+    }
+
+    private synchronized void update(long rttNanos, int inflightAtStart, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * DROP_BACKOFF);
+            return;
+        }
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) * SHORT_SMOOTHING;
+        longRtt += (rttNanos - longRtt) * LONG_SMOOTHING;
+        // after a slow period the long average would keep the limit high, let it catch up with the short one
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        // far below the limit the latency is not caused by it, growing further would only lift it without bound
+        if (inflightAtStart + 1 < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+}
@@ -0,0 +1,158 @@
+package academy.devdojo.springboot2.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Backpressure in front of the anime endpoints, so a slow database sheds load instead of piling up Tomcat threads.
+ * Every authenticated user first spends a token of their quota, an empty bucket answers 429. The request is then
+ * admitted only while the {@link AdaptiveConcurrencyLimit} has room, otherwise 503. Both rejections carry
+ * Retry-After. The /animes/admin/** routes may use the whole limit, the other routes stop short of the
+ * admin reserved share, and ROLE_ADMIN users get the larger admin quota.
+ * <p>
+ * Async requests (streamed responses) give their permit back when the request thread returns, from then on they
+ * hold no Tomcat thread and their duration is not a latency sample.
+ * Meters: devdojo.admission.limit, devdojo.admission.inflight and devdojo.admission.rejected tagged by reason.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "devdojo.admission", name = "enabled", matchIfMissing = true)
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 2)
+public class AdmissionFilter extends OncePerRequestFilter {
+    public static final String LIMIT_GAUGE = "devdojo.admission.limit";
+    public static final String INFLIGHT_GAUGE = "devdojo.admission.inflight";
+    public static final String REJECTED_COUNTER = "devdojo.admission.rejected";
+    private static final String ADMITTED_PATH = "/animes";
+    private static final String ADMIN_PATH = "/animes/admin";
+    private static final String ROLE_ADMIN = "ROLE_ADMIN";
+    private static final long LIMIT_RETRY_AFTER_SECONDS = 1;
+    private static final Duration IDLE_BUCKET_EXPIRY = Duration.ofMinutes(10);
+    private static final long MAX_BUCKETS = 100_000;
+
+    private final AdmissionProperties admissionProperties;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Cache<String, TokenBucket> buckets;
+    private final LongSupplier nanoClock;
+    private final Counter limitRejections;
+    private final Counter quotaRejections;
+
+    @Autowired
+    public AdmissionFilter(AdmissionProperties admissionProperties, MeterRegistry meterRegistry) {
+        this(admissionProperties, meterRegistry, System::nanoTime);
+    }
+
+    AdmissionFilter(AdmissionProperties admissionProperties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.admissionProperties = admissionProperties;
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(admissionProperties.getInitialLimit(),
+                admissionProperties.getMinLimit(), admissionProperties.getMaxLimit(), admissionProperties.getTolerance());
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(IDLE_BUCKET_EXPIRY)
+                .maximumSize(MAX_BUCKETS)
+                .build();
+        this.nanoClock = nanoClock;
+        this.limitRejections = meterRegistry.counter(REJECTED_COUNTER, "reason", "limit");
+        this.quotaRejections = meterRegistry.counter(REJECTED_COUNTER, "reason", "quota");
+        Gauge.builder(LIMIT_GAUGE, concurrencyLimit, AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+        Gauge.builder(INFLIGHT_GAUGE, concurrencyLimit, AdaptiveConcurrencyLimit::getInflight).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !path(request).startsWith(ADMITTED_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
+            long waitNanos = bucket(authentication).tryConsume(nanoClock.getAsLong());
+            if (waitNanos > 0) {
+                quotaRejections.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS,
+                        Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1))),
+                        "Request quota exceeded");
+                return;
+            }
+        }
+
+        int reserved = path(request).startsWith(ADMIN_PATH)
+                ? 0
+                : (int) Math.ceil(concurrencyLimit.getLimit() * admissionProperties.getAdminReservedShare());
+        int inflightAtStart = concurrencyLimit.tryAcquire(reserved);
+        if (inflightAtStart < 0) {
+            limitRejections.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, LIMIT_RETRY_AFTER_SECONDS, "Server is overloaded");
+            return;
+        }
+
+        long start = nanoClock.getAsLong();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (!completed || request.isAsyncStarted()) {
+                concurrencyLimit.release();
+            } else {
+                concurrencyLimit.release(nanoClock.getAsLong() - start, inflightAtStart,
+                        response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value());
+            }
+        }
+    }
+
+    private TokenBucket bucket(Authentication authentication) {
+        AdmissionProperties.Quota quota = isAdmin(authentication)
+                ? admissionProperties.getAdminQuota()
+                : admissionProperties.getUserQuota();
+        return buckets.get(authentication.getName(), username -> new TokenBucket(quota, nanoClock.getAsLong()));
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (ROLE_ADMIN.equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(status.value(), message);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    AdaptiveConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+}
@@ -0,0 +1,44 @@
+package academy.devdojo.springboot2.admission;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * devdojo.admission, the limits of {@link AdmissionFilter}.
+ */
+@Data
+@Component
+@ConfigurationProperties("devdojo.admission")
+public class AdmissionProperties {
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 200;
+    /**
+     * How much slower than the long term latency requests may get before the limit shrinks, 1.5 is 50% slower.
+     */
+    private double tolerance = 1.5;
+    /**
+     * Share of the limit only the /animes/admin/** routes may use.
+     */
+    private double adminReservedShare = 0.1;
+    private Quota userQuota = new Quota(100, 50);
+    private Quota adminQuota = new Quota(200, 100);
+
+    @Data
+    public static class Quota {
+        /**
+         * Burst a user may send at once.
+         */
+        private int capacity;
+        private double refillPerSecond;
+
+        public Quota() {
+        }
+
+        Quota(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package academy.devdojo.springboot2.admission;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request quota of one user, refilled continuously up to its capacity.
+ */
+final class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(AdmissionProperties.Quota quota, long nowNanos) {
+        this.capacity = quota.getCapacity();
+        this.tokensPerNano = quota.getRefillPerSecond() / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.refilledAt = nowNanos;
+    }
+
+    /**
+     * @return 0 when a token was taken, otherwise the nanos until the next one
+     */
+    synchronized long tryConsume(long nowNanos) {
+        tokens = Math.min(capacity, tokens + (nowNanos - refilledAt) * tokensPerNano);
+        refilledAt = nowNanos;
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+}
@@ -0,0 +1,138 @@
+package academy.devdojo.springboot2.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Structured access and audit log written off the request threads. Request threads only put an
+ * {@link AccessLogEvent} in a lock-free ring buffer, a single writer thread formats the events every
+ * devdojo.access-log.flush-interval and appends them in batches of up to devdojo.access-log.batch-size lines,
+ * one log event per batch on the academy.devdojo.springboot2.access logger.
+ * When the buffer is full the event is dropped and counted in devdojo.access-log.dropped, a request never waits for the log.
+ * Successful reads of devdojo.access-log.sampled-uris are kept at devdojo.access-log.sample-rate,
+ * errors and {@link AccessLogEvent.Type#AUDIT} events are always kept.
+ */
+@Log4j2(topic = "academy.devdojo.springboot2.access")
+@Component
+public class AccessLog {
+    public static final String DROPPED_COUNTER = "devdojo.access-log.dropped";
+    public static final String WRITTEN_COUNTER = "devdojo.access-log.written";
+    public static final String BUFFERED_GAUGE = "devdojo.access-log.buffered";
+
+    private final AccessLogRingBuffer<AccessLogEvent> buffer;
+    private final int batchSize;
+    private final double sampleRate;
+    private final Set<String> sampledUris;
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private final ScheduledExecutorService writer;
+    // only touched by the writer thread
+    private final StringBuilder batch = new StringBuilder();
+
+    public AccessLog(MeterRegistry meterRegistry,
+                     @Value("${devdojo.access-log.buffer-size:8192}") int bufferSize,
+                     @Value("${devdojo.access-log.batch-size:256}") int batchSize,
+                     @Value("${devdojo.access-log.flush-interval:100ms}") Duration flushInterval,
+                     @Value("${devdojo.access-log.sample-rate:0.1}") double sampleRate,
+                     @Value("${devdojo.access-log.sampled-uris:/animes/{id},/animes/by-id/{id}}") Set<String> sampledUris) {
+        this.buffer = new AccessLogRingBuffer<>(bufferSize);
+        this.batchSize = batchSize;
+        this.sampleRate = sampleRate;
+        this.sampledUris = Set.copyOf(sampledUris);
+        this.droppedCounter = meterRegistry.counter(DROPPED_COUNTER);
+        this.writtenCounter = meterRegistry.counter(WRITTEN_COUNTER);
+        Gauge.builder(BUFFERED_GAUGE, buffer, AccessLogRingBuffer::size).register(meterRegistry);
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "access-log-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long flushIntervalNanos = flushInterval.toNanos();
+        writer.scheduleWithFixedDelay(this::drain, flushIntervalNanos, flushIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Never blocks, the event is dropped when it is sampled out or the buffer is full.
+     */
+    public void record(AccessLogEvent event) {
+        if (!sampled(event)) {
+            return;
+        }
+        if (!buffer.offer(event)) {
+            droppedCounter.increment();
+        }
+    }
+
+    private boolean sampled(AccessLogEvent event) {
+        return event.getType() == AccessLogEvent.Type.AUDIT
+                || event.getStatus() >= 400
+                || sampleRate >= 1
+                || !sampledUris.contains(event.getUri())
+                || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Writes everything buffered so far, called by the writer thread only.
+     */
+    void drain() {
+        try {
+            int drained;
+            do {
+                batch.setLength(0);
+                drained = buffer.drain(this::append, batchSize);
+                if (drained > 0) {
+                    batch.setLength(batch.length() - 1);
+                    log.info(batch.toString());
+                    writtenCounter.increment(drained);
+                }
+            } while (drained == batchSize);
+        } catch (RuntimeException e) {
+            // an exception would cancel the schedule and every later event would be dropped
+            log.error("Could not write the access log", e);
+        }
+    }
+
+    private void append(AccessLogEvent event) {
+        format(event, batch).append('\n');
+    }
+
+    /**
+     * logfmt, one line per event.
+     */
+    static StringBuilder format(AccessLogEvent event, StringBuilder line) {
+        line.append("at=").append(Instant.ofEpochMilli(event.getTimestampMillis()))
+                .append(" type=").append(event.getType())
+                .append(" method=").append(event.getMethod())
+                .append(" path=").append(event.getPath())
+                .append(" uri=").append(event.getUri())
+                .append(" status=").append(event.getStatus())
+                .append(" duration_us=").append(TimeUnit.NANOSECONDS.toMicros(event.getDurationNanos()));
+        PrincipalSummary principal = event.getPrincipal();
+        if (principal == null) {
+            return line.append(" user=-");
+        }
+        return line.append(" user=").append(principal.getUsername())
+                .append(" authorities=").append(principal.getAuthorities());
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+        drain();
+    }
+}
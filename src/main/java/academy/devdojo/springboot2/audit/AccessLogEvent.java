@@ -0,0 +1,53 @@
+package academy.devdojo.springboot2.audit;
+
+import lombok.Value;
+import org.springframework.http.HttpStatus;
+
+/**
+ * One request as the access log sees it, created on the request thread and formatted on the writer thread.
+ */
+@Value
+public class AccessLogEvent {
+    Type type;
+    long timestampMillis;
+    String method;
+    String path;
+    /**
+     * The matched route, e.g. /animes/{id}, UNKNOWN when no route matched.
+     */
+    String uri;
+    int status;
+    long durationNanos;
+    PrincipalSummary principal;
+
+    public static AccessLogEvent of(String method, String path, String uri, int status, long durationNanos,
+                                    PrincipalSummary principal) {
+        return new AccessLogEvent(Type.of(method, status), System.currentTimeMillis(), method, path, uri, status,
+                durationNanos, principal);
+    }
+
+    public enum Type {
+        /**
+         * Reads, sampled on the high volume endpoints.
+         */
+        ACCESS,
+        /**
+         * Requests that change data and requests rejected as unauthenticated or forbidden, never sampled.
+         */
+        AUDIT;
+
+        static Type of(String method, int status) {
+            if (status == HttpStatus.UNAUTHORIZED.value() || status == HttpStatus.FORBIDDEN.value()) {
+                return AUDIT;
+            }
+            switch (method) {
+                case "GET":
+                case "HEAD":
+                case "OPTIONS":
+                    return ACCESS;
+                default:
+                    return AUDIT;
+            }
+        }
+    }
+}
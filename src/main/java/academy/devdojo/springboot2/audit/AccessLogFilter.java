@@ -0,0 +1,98 @@
+package academy.devdojo.springboot2.audit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Hands every request to the {@link AccessLog}, including the ones Spring Security rejects with 401 or 403.
+ * It runs right before the security filter chain, which clears the security context on its way out, so the
+ * principal is read from the request attribute {@link PrincipalCaptureFilter} sets inside the chain.
+ * Async requests, such as the streamed /animes/all, are recorded when they complete, with the principal of the
+ * initial dispatch.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class AccessLogFilter extends OncePerRequestFilter {
+    static final String UNKNOWN_URI = "UNKNOWN";
+    static final String PRINCIPAL_ATTRIBUTE = AccessLogFilter.class.getName() + ".PRINCIPAL";
+
+    private final AccessLog accessLog;
+
+    public AccessLogFilter(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            PrincipalSummary principal = (PrincipalSummary) request.getAttribute(PRINCIPAL_ATTRIBUTE);
+            if (completed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(request, response, start, principal));
+            } else {
+                record(request, completed ? response.getStatus() : HttpStatus.INTERNAL_SERVER_ERROR.value(), start,
+                        principal);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long start, PrincipalSummary principal) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        accessLog.record(AccessLogEvent.of(request.getMethod(), request.getRequestURI(),
+                pattern == null ? UNKNOWN_URI : pattern.toString(), status, System.nanoTime() - start, principal));
+    }
+
+    /**
+     * Timeouts and errors also end in onComplete, once the error response is written.
+     */
+    private class CompletionListener implements AsyncListener {
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long start;
+        private final PrincipalSummary principal;
+
+        CompletionListener(HttpServletRequest request, HttpServletResponse response, long start,
+                           PrincipalSummary principal) {
+            this.request = request;
+            this.response = response;
+            this.start = start;
+            this.principal = principal;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(request, response.getStatus(), start, principal);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
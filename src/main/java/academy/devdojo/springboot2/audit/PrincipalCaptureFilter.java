@@ -0,0 +1,25 @@
+package academy.devdojo.springboot2.audit;
+
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Leaves the authenticated principal on the request for {@link AccessLogFilter}. Added to the security filter chain
+ * after authentication and before authorization, so a request rejected with 403 still names its user.
+ */
+public class PrincipalCaptureFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        request.setAttribute(AccessLogFilter.PRINCIPAL_ATTRIBUTE,
+                PrincipalSummary.of(SecurityContextHolder.getContext().getAuthentication()));
+        filterChain.doFilter(request, response);
+    }
+}
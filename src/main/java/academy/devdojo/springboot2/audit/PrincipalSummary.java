@@ -0,0 +1,36 @@
+package academy.devdojo.springboot2.audit;
+
+import lombok.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.security.Principal;
+import java.util.stream.Collectors;
+
+/**
+ * What the access log keeps of a principal, its name and authorities. Credentials and the user details
+ * are never read, so no password hash can end up in a log line.
+ */
+@Value
+public class PrincipalSummary {
+    String username;
+    String authorities;
+
+    /**
+     * @return null for anonymous and unauthenticated requests
+     */
+    public static PrincipalSummary of(Principal principal) {
+        if (!(principal instanceof Authentication)) {
+            return principal == null ? null : new PrincipalSummary(principal.getName(), "");
+        }
+        Authentication authentication = (Authentication) principal;
+        if (authentication instanceof AnonymousAuthenticationToken || !authentication.isAuthenticated()) {
+            return null;
+        }
+        String authorities = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+        return new PrincipalSummary(authentication.getName(), authorities);
+    }
+}
@@ -0,0 +1,23 @@
+package academy.devdojo.springboot2.bulkhead;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the method inside the named bulkhead of {@link BulkheadAspect}, limits come from devdojo.bulkhead.limits.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+    String AUTH = "auth";
+    String READS = "reads";
+    String DUMPS = "dumps";
+    String WRITES = "writes";
+    String ADMIN_WRITES = "admin-writes";
+
+    String value();
+}
@@ -0,0 +1,149 @@
+package academy.devdojo.springboot2.bulkhead;
+
+import academy.devdojo.springboot2.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps how many {@link Bulkhead} calls of each workload run at once, so a burst of one workload cannot take
+ * every pooled connection and starve the others. Callers wait up to the acquire timeout for a permit and are
+ * then rejected with {@link BulkheadFullException}.
+ * <p>
+ * Ordered inside the cache and outside the transaction: cache hits need no permit and the connection is only
+ * taken once the permit is held. It goes back to the pool with the transaction, before the permit, as long as
+ * spring.jpa.open-in-view stays off. A thread that already holds a bulkhead does not take a second permit of it.
+ * Meters, tagged by bulkhead: devdojo.bulkhead.active, devdojo.bulkhead.limit, devdojo.bulkhead.queued and
+ * devdojo.bulkhead.wait, the latter tagged acquired or rejected.
+ */
+@Aspect
+@Component
+@Order(BulkheadAspect.ORDER)
+public class BulkheadAspect {
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 100;
+    public static final String ACTIVE_GAUGE = "devdojo.bulkhead.active";
+    public static final String LIMIT_GAUGE = "devdojo.bulkhead.limit";
+    public static final String QUEUED_GAUGE = "devdojo.bulkhead.queued";
+    public static final String WAIT_TIMER = "devdojo.bulkhead.wait";
+    private static final ThreadLocal<Set<String>> HELD = ThreadLocal.withInitial(HashSet::new);
+    private static final ThreadLocal<Runnable> PERMIT_LISTENER = new ThreadLocal<>();
+
+    private final BulkheadProperties bulkheadProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+    public BulkheadAspect(BulkheadProperties bulkheadProperties, MeterRegistry meterRegistry) {
+        this.bulkheadProperties = bulkheadProperties;
+        this.meterRegistry = meterRegistry;
+        // meters exist from startup, not from the first call
+        bulkheadProperties.getLimits().keySet().forEach(this::compartment);
+    }
+
+    @Around("@annotation(bulkhead)")
+    public Object isolate(ProceedingJoinPoint joinPoint, Bulkhead bulkhead) throws Throwable {
+        String name = bulkhead.value();
+        Set<String> held = HELD.get();
+        if (!held.add(name)) {
+            permitAcquired();
+            return joinPoint.proceed();
+        }
+        try {
+            Compartment compartment = compartment(name);
+            compartment.acquire();
+            permitAcquired();
+            try {
+                return joinPoint.proceed();
+            } finally {
+                compartment.release();
+            }
+        } finally {
+            held.remove(name);
+        }
+    }
+
+    /**
+     * Runs {@code listener} once the next bulkhead call on this thread holds its permit, or already held it.
+     * Null removes a listener that did not run.
+     */
+    public static void onPermitAcquired(Runnable listener) {
+        if (listener == null) {
+            PERMIT_LISTENER.remove();
+        } else {
+            PERMIT_LISTENER.set(listener);
+        }
+    }
+
+    private static void permitAcquired() {
+        Runnable listener = PERMIT_LISTENER.get();
+        if (listener != null) {
+            PERMIT_LISTENER.remove();
+            listener.run();
+        }
+    }
+
+    private Compartment compartment(String name) {
+        return compartments.computeIfAbsent(name, key -> new Compartment(key,
+                bulkheadProperties.getLimits().getOrDefault(key, new BulkheadProperties.Limit())));
+    }
+
+    private class Compartment {
+        private final String name;
+        private final Semaphore semaphore;
+        private final long acquireTimeoutNanos;
+        private final Timer acquired;
+        private final Timer rejected;
+
+        Compartment(String name, BulkheadProperties.Limit limit) {
+            this.name = name;
+            // fair, the callers of one workload are served in arrival order
+            this.semaphore = new Semaphore(limit.getMaxConcurrent(), true);
+            this.acquireTimeoutNanos = limit.getAcquireTimeout().toNanos();
+            this.acquired = Timer.builder(WAIT_TIMER).tag("bulkhead", name).tag("outcome", "acquired")
+                    .register(meterRegistry);
+            this.rejected = Timer.builder(WAIT_TIMER).tag("bulkhead", name).tag("outcome", "rejected")
+                    .register(meterRegistry);
+            int maxConcurrent = limit.getMaxConcurrent();
+            Gauge.builder(ACTIVE_GAUGE, semaphore, s -> maxConcurrent - s.availablePermits())
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Gauge.builder(LIMIT_GAUGE, () -> maxConcurrent)
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+            Gauge.builder(QUEUED_GAUGE, semaphore, Semaphore::getQueueLength)
+                    .tag("bulkhead", name)
+                    .register(meterRegistry);
+        }
+
+        void acquire() {
+            long start = System.nanoTime();
+            boolean isAcquired;
+            try {
+                isAcquired = semaphore.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                isAcquired = false;
+            }
+            (isAcquired ? acquired : rejected).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!isAcquired) {
+                throw new BulkheadFullException(name);
+            }
+        }
+
+        void release() {
+            semaphore.release();
+        }
+    }
+}
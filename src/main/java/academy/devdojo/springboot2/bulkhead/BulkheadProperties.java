@@ -0,0 +1,28 @@
+package academy.devdojo.springboot2.bulkhead;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * devdojo.bulkhead.limits, by bulkhead name. Bulkheads without limits get the defaults of {@link Limit}.
+ */
+@Data
+@Component
+@ConfigurationProperties("devdojo.bulkhead")
+public class BulkheadProperties {
+    private Map<String, Limit> limits = new HashMap<>();
+
+    @Data
+    public static class Limit {
+        private int maxConcurrent = 10;
+        /**
+         * How long a call waits for a permit before it is rejected.
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,346 @@
+package academy.devdojo.springboot2.client;
+
+import academy.devdojo.springboot2.converter.AnimeProtobuf;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.responses.AnimeCursorPage;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import wrapper.PageableResponse;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Client of the /animes API. One instance is meant to be shared by the whole application, it keeps a pool of
+ * keep-alive connections and is safe to use from many threads.
+ * <p>
+ * Every call has a blocking form and an {@code Async} form returning a {@link CompletableFuture}, the async calls
+ * run on the client's own threads, one per pooled connection. Errors come as {@link AnimeClientException}.
+ * Responses are decoded by their Content-Type, so a body the server answered in JSON instead of the
+ * {@link AnimeClientOptions#getFormat()} is still read.
+ */
+public class AnimeClient implements AutoCloseable {
+    private static final TypeReference<List<Anime>> ANIME_LIST = new TypeReference<>() {
+    };
+
+    private final AnimeClientOptions options;
+    private final ExecutorService executor;
+    private final CloseableHttpClient httpClient;
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper binaryMapper;
+    private final String accept;
+    private final JavaType animeType = mapper.constructType(Anime.class);
+    private final JavaType animeList = mapper.getTypeFactory().constructType(ANIME_LIST);
+    private final JavaType animePage = mapper.getTypeFactory().constructParametricType(PageableResponse.class, Anime.class);
+    private final JavaType cursorPage = mapper.constructType(AnimeCursorPage.class);
+    private final String authorization;
+    private final AtomicLong hedgedRequests = new AtomicLong();
+
+    public AnimeClient(AnimeClientOptions options) {
+        this.options = options;
+        this.binaryMapper = binaryMapper(options.getFormat());
+        this.accept = options.getFormat() == AnimeClientOptions.Format.JSON ? options.getFormat().getMediaType()
+                : options.getFormat().getMediaType() + ", application/json;q=0.5";
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(options.getMaxConnections(), runnable -> {
+            Thread thread = new Thread(runnable, "anime-client-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = pooledHttpClient(options);
+        this.authorization = options.getUsername() == null ? null : "Basic " + Base64.getEncoder()
+                .encodeToString((options.getUsername() + ":" + options.getPassword()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The keep-alive pool and timeouts of the client, for callers that need raw requests on the same footing.
+     */
+    public static CloseableHttpClient pooledHttpClient(AnimeClientOptions options) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(options.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(options.getMaxConnections());
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) options.getConnectTimeout().toMillis())
+                        .setSocketTimeout((int) options.getRequestTimeout().toMillis())
+                        .setConnectionRequestTimeout((int) options.getConnectionRequestTimeout().toMillis())
+                        .build())
+                .disableCookieManagement()
+                .build();
+    }
+
+    public Anime findById(long id) {
+        if (options.getHedgeDelay() != null) {
+            return join(findByIdAsync(id));
+        }
+        return execute(findByIdRequest(id), animeType);
+    }
+
+    /**
+     * Reads GET /animes/{id}, hedged when {@link AnimeClientOptions#getHedgeDelay()} is set.
+     */
+    public CompletableFuture<Anime> findByIdAsync(long id) {
+        return hedged(() -> send(findByIdRequest(id), animeType));
+    }
+
+    public List<Anime> findByName(String name) {
+        return execute(findByNameRequest(name), animeList);
+    }
+
+    public CompletableFuture<List<Anime>> findByNameAsync(String name) {
+        return send(findByNameRequest(name), animeList);
+    }
+
+    public Page<Anime> list(int page, int size) {
+        return execute(listRequest(page, size), animePage);
+    }
+
+    public CompletableFuture<Page<Anime>> listAsync(int page, int size) {
+        return send(listRequest(page, size), animePage);
+    }
+
+    public CompletableFuture<AnimeCursorPage> listAfterAsync(String after, int limit) {
+        String query = after == null ? "" : "&after=" + URLEncoder.encode(after, StandardCharsets.UTF_8);
+        return send(new HttpGet(uri("/animes?limit=" + limit + query)), cursorPage);
+    }
+
+    /**
+     * Walks every anime through the keyset pages. The next page is requested as soon as the current one arrives,
+     * so it is usually ready by the time the caller is done with the current one.
+     */
+    public Iterator<Anime> iterateAll(int pageSize) {
+        return new PrefetchingIterator(pageSize);
+    }
+
+    public Anime save(AnimePostRequestBody animePostRequestBody) {
+        return execute(json(new HttpPost(uri("/animes")), animePostRequestBody), animeType);
+    }
+
+    public CompletableFuture<Anime> saveAsync(AnimePostRequestBody animePostRequestBody) {
+        return send(json(new HttpPost(uri("/animes")), animePostRequestBody), animeType);
+    }
+
+    public void replace(AnimePutRequestBody animePutRequestBody) {
+        execute(json(new HttpPut(uri("/animes")), animePutRequestBody), null);
+    }
+
+    public CompletableFuture<Void> replaceAsync(AnimePutRequestBody animePutRequestBody) {
+        return send(json(new HttpPut(uri("/animes")), animePutRequestBody), null);
+    }
+
+    public void delete(long id) {
+        execute(new HttpDelete(uri("/animes/admin/" + id)), null);
+    }
+
+    public CompletableFuture<Void> deleteAsync(long id) {
+        return send(new HttpDelete(uri("/animes/admin/" + id)), null);
+    }
+
+    /**
+     * Number of hedge requests sent so far, compare it with the number of by-id reads to tune the delay.
+     */
+    public long getHedgedRequests() {
+        return hedgedRequests.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            throw new AnimeClientException("Could not close the connection pool", e);
+        }
+    }
+
+    /**
+     * The first successful answer completes the result. A failure only completes it when no other request is
+     * still running, so a hedge can rescue a primary request that fails after the hedge was sent.
+     */
+    private <T> CompletableFuture<T> hedged(Supplier<CompletableFuture<T>> call) {
+        if (options.getHedgeDelay() == null) {
+            return call.get();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger running = new AtomicInteger(1);
+        call.get().whenComplete((value, error) -> completeHedged(result, running, value, error));
+        CompletableFuture.delayedExecutor(options.getHedgeDelay().toNanos(), TimeUnit.NANOSECONDS, executor)
+                .execute(() -> {
+                    if (!result.isDone()) {
+                        running.incrementAndGet();
+                        hedgedRequests.incrementAndGet();
+                        call.get().whenComplete((value, error) -> completeHedged(result, running, value, error));
+                    }
+                });
+        return result;
+    }
+
+    private static <T> void completeHedged(CompletableFuture<T> result, AtomicInteger running, T value, Throwable error) {
+        if (error == null) {
+            result.complete(value);
+        } else if (running.decrementAndGet() == 0) {
+            result.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Runs the request on the client's threads, the blocking methods run it on the caller's thread instead.
+     */
+    private <T> CompletableFuture<T> send(HttpRequestBase request, JavaType type) {
+        return CompletableFuture.supplyAsync(() -> execute(request, type), executor);
+    }
+
+    /**
+     * Reads the whole body before returning, which hands the connection back to the pool for the next request.
+     */
+    private <T> T execute(HttpRequestBase request, JavaType type) {
+        if (authorization != null) {
+            request.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        request.setHeader(HttpHeaders.ACCEPT, accept);
+        try {
+            return httpClient.execute(request, response -> {
+                byte[] body = response.getEntity() == null ? new byte[0] : EntityUtils.toByteArray(response.getEntity());
+                int status = response.getStatusLine().getStatusCode();
+                if (status >= 300) {
+                    throw new AnimeClientException(status, request.getMethod() + " " + request.getURI()
+                            + " returned " + status + ": " + new String(body, StandardCharsets.UTF_8));
+                }
+                return type == null ? null : read(body, response.getEntity().getContentType(), type);
+            });
+        } catch (IOException e) {
+            throw new AnimeClientException(request.getMethod() + " " + request.getURI() + " failed", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(byte[] body, Header contentType, JavaType type) throws IOException {
+        String mediaType = contentType == null ? "" : contentType.getValue();
+        if (mediaType.startsWith(AnimeClientOptions.Format.PROTOBUF.getMediaType())) {
+            CodedInputStream input = CodedInputStream.newInstance(body);
+            if (type == animeType) {
+                return (T) AnimeProtobuf.readAnime(input);
+            }
+            return (T) (type == animePage ? AnimeProtobuf.readPage(input) : AnimeProtobuf.readAnimes(input));
+        }
+        if (binaryMapper != null && mediaType.startsWith(options.getFormat().getMediaType())) {
+            return binaryMapper.readValue(body, type);
+        }
+        return mapper.readValue(body, type);
+    }
+
+    private static ObjectMapper binaryMapper(AnimeClientOptions.Format format) {
+        switch (format) {
+            case SMILE:
+                return Jackson2ObjectMapperBuilder.smile().build();
+            case CBOR:
+                return Jackson2ObjectMapperBuilder.cbor().build();
+            default:
+                return null;
+        }
+    }
+
+    private HttpGet findByIdRequest(long id) {
+        return new HttpGet(uri("/animes/" + id));
+    }
+
+    private HttpGet findByNameRequest(String name) {
+        return new HttpGet(uri("/animes/find?name=" + URLEncoder.encode(name, StandardCharsets.UTF_8)));
+    }
+
+    private HttpGet listRequest(int page, int size) {
+        return new HttpGet(uri("/animes?page=" + page + "&size=" + size));
+    }
+
+    private HttpRequestBase json(HttpEntityEnclosingRequestBase request, Object body) {
+        try {
+            request.setEntity(new ByteArrayEntity(mapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON));
+            return request;
+        } catch (IOException e) {
+            throw new AnimeClientException("Could not write the request body", e);
+        }
+    }
+
+    private String uri(String path) {
+        return options.getBaseUrl() + path;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AnimeClientException) {
+                throw (AnimeClientException) e.getCause();
+            }
+            throw new AnimeClientException("Request failed", e.getCause());
+        }
+    }
+
+    private class PrefetchingIterator implements Iterator<Anime> {
+        private final int pageSize;
+        private Iterator<Anime> current = Collections.emptyIterator();
+        private CompletableFuture<AnimeCursorPage> nextPage;
+
+        PrefetchingIterator(int pageSize) {
+            this.pageSize = pageSize;
+            this.nextPage = listAfterAsync(null, pageSize);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (nextPage == null) {
+                    return false;
+                }
+                AnimeCursorPage page = join(nextPage);
+                nextPage = page.getNextCursor() == null ? null : listAfterAsync(page.getNextCursor(), pageSize);
+                current = page.getContent().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Anime next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package academy.devdojo.springboot2.client;
+
+/**
+ * Thrown by {@link AnimeClient} when the API answers with an error status or cannot be reached,
+ * {@code status} is 0 in the latter case.
+ */
+public class AnimeClientException extends RuntimeException {
+    private final int status;
+
+    public AnimeClientException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public AnimeClientException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = 0;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,59 @@
+package academy.devdojo.springboot2.client;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Settings of an {@link AnimeClient}. Only {@code baseUrl} is required, credentials are sent as Basic auth when given.
+ */
+@Value
+@Builder
+public class AnimeClientOptions {
+    String baseUrl;
+    String username;
+    String password;
+    @Builder.Default
+    Duration connectTimeout = Duration.ofSeconds(2);
+    @Builder.Default
+    Duration requestTimeout = Duration.ofSeconds(10);
+    /**
+     * Size of the keep-alive connection pool, which is also the number of requests that can be in flight at once.
+     */
+    @Builder.Default
+    int maxConnections = 20;
+    /**
+     * Time to wait for a free pooled connection before failing.
+     */
+    @Builder.Default
+    Duration connectionRequestTimeout = Duration.ofSeconds(2);
+    /**
+     * When a by-id read has not answered after this delay a second identical request is sent and the first answer
+     * wins. Null turns hedging off. Set it around the p95 of the endpoint so only the slow tail is duplicated.
+     */
+    Duration hedgeDelay;
+    /**
+     * Encoding asked for in Accept, with JSON as the fallback for the bodies a format does not cover.
+     * Protobuf only covers animes, lists and pages of them.
+     */
+    @Builder.Default
+    Format format = Format.JSON;
+
+    public enum Format {
+        JSON("application/json"),
+        SMILE("application/x-jackson-smile"),
+        CBOR("application/cbor"),
+        PROTOBUF("application/x-protobuf");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+    }
+}
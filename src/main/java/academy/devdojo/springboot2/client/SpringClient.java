@@ -1,41 +1,64 @@
 package academy.devdojo.springboot2.client;
 
+import academy.devdojo.springboot2.converter.AnimeProtobufHttpMessageConverter;
 import academy.devdojo.springboot2.domain.Anime;
 import lombok.extern.java.Log;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.web.client.RestTemplate;
+import wrapper.PageableResponse;
 
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Walks through the RestTemplate calls once, use {@link academy.devdojo.springboot2.client.loadgen.LoadGenerator} to put load on the API.
+ */
 @Log4j2
 public class SpringClient {
+    private static final RestTemplate REST_TEMPLATE = new RestTemplate();
+
     public static void main(String[] args) {
-        ResponseEntity<Anime> entity = new RestTemplate().getForEntity("http://localhost:8080/animes/{id}", Anime.class, 12);
+        ResponseEntity<Anime> entity = REST_TEMPLATE.getForEntity("http://localhost:8080/animes/{id}", Anime.class, 12);
         log.info(entity);
 
-        Anime object = new RestTemplate().getForObject("http://localhost:8080/animes/{id}", Anime.class, 12);
+        Anime object = REST_TEMPLATE.getForObject("http://localhost:8080/animes/{id}", Anime.class, 12);
 
         log.info(object);
 
-        Anime[] animes = new RestTemplate().getForObject("http://localhost:8080/animes/all", Anime[].class);
+        Anime[] animes = REST_TEMPLATE.getForObject("http://localhost:8080/animes/all", Anime[].class);
 
         log.info(Arrays.toString(animes));
 
-        ResponseEntity<List<Anime>> exchange = new RestTemplate().exchange("http://localhost:8080/animes/all", HttpMethod.GET, null,
+        ResponseEntity<List<Anime>> exchange = REST_TEMPLATE.exchange("http://localhost:8080/animes/all", HttpMethod.GET, null,
                 new ParameterizedTypeReference<>() {
                 });
 
         log.info(exchange.getBody());
 
+        // the binary formats, RestTemplate reads Smile and CBOR out of the box when Jackson's modules are present
+        RestTemplate binaryRestTemplate = new RestTemplate();
+        binaryRestTemplate.getMessageConverters().add(new AnimeProtobufHttpMessageConverter());
+
+        ResponseEntity<PageableResponse<Anime>> smilePage = binaryRestTemplate.exchange("http://localhost:8080/animes?size=5",
+                HttpMethod.GET, new HttpEntity<>(createAcceptHeader(new MediaType("application", "x-jackson-smile"))),
+                new ParameterizedTypeReference<>() {
+                });
+        log.info(smilePage.getBody());
+
+        ResponseEntity<PageableResponse<Anime>> protobufPage = binaryRestTemplate.exchange("http://localhost:8080/animes?size=5",
+                HttpMethod.GET, new HttpEntity<>(createAcceptHeader(AnimeProtobufHttpMessageConverter.APPLICATION_PROTOBUF)),
+                new ParameterizedTypeReference<>() {
+                });
+        log.info(protobufPage.getBody());
+
 //        Anime kingdom = Anime.builder().name("Kingdon").build();
-//        Anime kingdonSave = new RestTemplate().postForObject("http://localhost:8080/animes/", kingdom, Anime.class);
+//        Anime kingdonSave = REST_TEMPLATE.postForObject("http://localhost:8080/animes/", kingdom, Anime.class);
 //        log.info("Saved anime {}", kingdonSave);
 
         Anime samuraiX = Anime.builder().name("Samurai x").build();
-        ResponseEntity<Anime> samuraiXSaved = new RestTemplate().exchange("http://localhost:8080/animes/",
+        ResponseEntity<Anime> samuraiXSaved = REST_TEMPLATE.exchange("http://localhost:8080/animes/",
                 HttpMethod.POST,
                 new HttpEntity<>(samuraiX, createJsonHeader()),
                 Anime.class);
@@ -44,7 +67,7 @@ public class SpringClient {
         Anime animeToBeUptdated = samuraiXSaved.getBody();
         animeToBeUptdated.setName("Samurai X 2");
 
-        ResponseEntity<Void> samuraiXUptadated = new RestTemplate().exchange("http://localhost:8080/animes/",
+        ResponseEntity<Void> samuraiXUptadated = REST_TEMPLATE.exchange("http://localhost:8080/animes/",
                 HttpMethod.PUT,
                 new HttpEntity<>(animeToBeUptdated, createJsonHeader()),
                 Void.class);
@@ -52,7 +75,7 @@ public class SpringClient {
         log.info(samuraiXUptadated);
 
 
-        ResponseEntity<Void> samuraiXDelete = new RestTemplate().exchange("http://localhost:8080/animes/{id}",
+        ResponseEntity<Void> samuraiXDelete = REST_TEMPLATE.exchange("http://localhost:8080/animes/{id}",
                 HttpMethod.DELETE,
                 null,
                 Void.class,
@@ -63,6 +86,12 @@ public class SpringClient {
 
     }
 
+    private static HttpHeaders createAcceptHeader(MediaType mediaType){
+        HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setAccept(List.of(mediaType));
+        return httpHeaders;
+    }
+
     private static HttpHeaders createJsonHeader(){
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.setContentType(MediaType.APPLICATION_JSON);
@@ -0,0 +1,46 @@
+package academy.devdojo.springboot2.client.loadgen;
+
+import academy.devdojo.springboot2.domain.Anime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Animes known to exist on the server, so reads and writes hit real rows instead of 400s.
+ * Saves add to the pool and deletes take from it.
+ */
+public class AnimePool {
+    private final List<Anime> animes = new ArrayList<>();
+
+    public synchronized void add(Anime anime) {
+        animes.add(anime);
+    }
+
+    public synchronized Optional<Anime> pick(Random random) {
+        if (animes.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(animes.get(random.nextInt(animes.size())));
+    }
+
+    /**
+     * Removes a random anime, swapping the last one into its slot so the removal is O(1).
+     */
+    public synchronized Optional<Anime> take(Random random) {
+        if (animes.isEmpty()) {
+            return Optional.empty();
+        }
+        int index = random.nextInt(animes.size());
+        Anime last = animes.remove(animes.size() - 1);
+        if (index == animes.size()) {
+            return Optional.of(last);
+        }
+        return Optional.of(animes.set(index, last));
+    }
+
+    public synchronized int size() {
+        return animes.size();
+    }
+}
@@ -0,0 +1,111 @@
+package academy.devdojo.springboot2.client.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of one phase, in nanoseconds. Workers record into HdrHistogram {@link Recorder}s without locking,
+ * {@link #drain()} moves what was recorded since the last call into the accumulated histograms.
+ * <p>
+ * In open loop the response time is measured from when the request should have been sent, so a stalled server
+ * is charged for the requests that queued behind it (coordinated omission), the service time is measured from
+ * when it was actually sent.
+ */
+public class LatencyStats {
+    private static final long HIGHEST_TRACKABLE = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Recorder serviceTimeRecorder = newRecorder();
+    private final Histogram serviceTime = newHistogram();
+    private final Histogram interval = newHistogram();
+    private final long startNanos = System.nanoTime();
+
+    public LatencyStats() {
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, newRecorder());
+            histograms.put(operation, newHistogram());
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public void record(Operation operation, long responseTimeNanos, long serviceTimeNanos, boolean success) {
+        recorders.get(operation).recordValue(Math.min(responseTimeNanos, HIGHEST_TRACKABLE));
+        serviceTimeRecorder.recordValue(Math.min(serviceTimeNanos, HIGHEST_TRACKABLE));
+        if (!success) {
+            errors.get(operation).increment();
+        }
+    }
+
+    /**
+     * Folds everything recorded since the last call into the totals and returns it as one histogram of all operations.
+     */
+    public synchronized Histogram drain() {
+        interval.reset();
+        for (Operation operation : Operation.values()) {
+            Histogram recorded = recorders.get(operation).getIntervalHistogram();
+            histograms.get(operation).add(recorded);
+            interval.add(recorded);
+        }
+        serviceTime.add(serviceTimeRecorder.getIntervalHistogram());
+        return interval;
+    }
+
+    public synchronized void report(PrintStream out, boolean closedLoop) {
+        drain();
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        Histogram total = newHistogram();
+        out.printf("%-8s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            total.add(histogram);
+            if (histogram.getTotalCount() > 0) {
+                printRow(out, operation.getKey(), histogram, errors.get(operation).sum(), seconds);
+            }
+        }
+        long totalErrors = errors.values().stream().mapToLong(LongAdder::sum).sum();
+        printRow(out, "total", total, totalErrors, seconds);
+        if (!closedLoop) {
+            printRow(out, "service", serviceTime, totalErrors, seconds);
+        }
+        out.println();
+        out.println(closedLoop ? "Service time percentiles (ms), closed loop:"
+                : "Response time percentiles (ms), corrected for coordinated omission:");
+        total.outputPercentileDistribution(out, NANOS_PER_MILLI);
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram, long errors, double seconds) {
+        out.printf("%-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name,
+                histogram.getTotalCount(),
+                errors,
+                histogram.getTotalCount() / seconds,
+                millis(histogram, 50),
+                millis(histogram, 90),
+                millis(histogram, 99),
+                millis(histogram, 99.9),
+                histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+
+    static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+    }
+
+    private static Recorder newRecorder() {
+        return new Recorder(HIGHEST_TRACKABLE, SIGNIFICANT_DIGITS);
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(HIGHEST_TRACKABLE, SIGNIFICANT_DIGITS);
+    }
+}
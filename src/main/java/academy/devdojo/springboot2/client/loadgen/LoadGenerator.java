@@ -0,0 +1,322 @@
+package academy.devdojo.springboot2.client.loadgen;
+
+import academy.devdojo.springboot2.client.AnimeClient;
+import academy.devdojo.springboot2.client.AnimeClientOptions;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.responses.AnimeCursorPage;
+import academy.devdojo.springboot2.responses.TokenResponse;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import org.HdrHistogram.Histogram;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator for the /animes API, meant to be pointed at a local instance to find its capacity.
+ * <pre>
+ * java -cp target/classes:... academy.devdojo.springboot2.client.loadgen.LoadGenerator \
+ *     --base-url=http://localhost:8080 --concurrency=32 --rate=500 --warmup=15s --duration=2m \
+ *     --mix=list:30,by-id:50,save:10,replace:8,delete:2 --users=devdojo2:academy --admin=leonardo2:academy
+ * </pre>
+ * With --rate every worker takes the next slot of a fixed schedule (open loop) and latency is measured from the
+ * slot, without it every worker sends its next request as soon as the previous one is answered (closed loop).
+ * With --auth=token the credentials are exchanged for bearer tokens before seeding and again at half their lifetime,
+ * run it once with each mode to compare what Basic authentication costs per request.
+ * Requests go through the pooled Apache HttpClient of {@link AnimeClient}, one keep-alive connection per worker.
+ */
+@Log4j2
+public class LoadGenerator implements AutoCloseable {
+    private static final long REPORT_INTERVAL_SECONDS = 5;
+    private static final int SEED_PAGE_SIZE = 100;
+
+    private final LoadOptions options;
+    private final CloseableHttpClient httpClient;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final AnimePool pool = new AnimePool();
+    private final List<AtomicReference<String>> userAuthorizations = new ArrayList<>();
+    private final AtomicReference<String> adminAuthorization;
+
+    public LoadGenerator(LoadOptions options) {
+        this.options = options;
+        // one more connection than workers for the token refresh
+        this.httpClient = AnimeClient.pooledHttpClient(AnimeClientOptions.builder()
+                .baseUrl(options.getBaseUrl())
+                .maxConnections(options.getConcurrency() + 1)
+                .connectTimeout(options.getTimeout())
+                .requestTimeout(options.getTimeout())
+                .connectionRequestTimeout(options.getTimeout())
+                .build());
+        options.getUsers().forEach(user -> userAuthorizations.add(new AtomicReference<>(basic(user))));
+        this.adminAuthorization = new AtomicReference<>(basic(options.getAdmin()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        try (LoadGenerator loadGenerator = new LoadGenerator(options)) {
+            loadGenerator.run();
+        }
+        System.exit(0);
+    }
+
+    public void run() throws InterruptedException {
+        log.info("Load against {} with {} workers, {}, {} auth, mix {}", options.getBaseUrl(), options.getConcurrency(),
+                options.isClosedLoop() ? "closed loop" : options.getRate() + " req/s", options.getAuth(), options.getMix());
+        ScheduledExecutorService tokenRefresh = Executors.newSingleThreadScheduledExecutor();
+        if (options.getAuth() == LoadOptions.Auth.TOKEN) {
+            long expiresIn = issueTokens();
+            tokenRefresh.scheduleAtFixedRate(() -> {
+                try {
+                    issueTokens();
+                } catch (RuntimeException e) {
+                    log.warn("Could not refresh the tokens, keeping the current ones", e);
+                }
+            }, expiresIn / 2, expiresIn / 2, TimeUnit.SECONDS);
+        }
+        seed();
+        log.info("Seeded {} animes, warming up for {}", pool.size(), options.getWarmup());
+        runPhase(options.getWarmup(), new LatencyStats(), false);
+
+        log.info("Measuring for {}", options.getDuration());
+        LatencyStats stats = new LatencyStats();
+        runPhase(options.getDuration(), stats, true);
+        System.out.println();
+        stats.report(System.out, options.isClosedLoop());
+        tokenRefresh.shutdownNow();
+    }
+
+    /**
+     * Replaces every authorization with a fresh bearer token.
+     *
+     * @return the lifetime of the tokens in seconds
+     */
+    private long issueTokens() {
+        long expiresIn = Long.MAX_VALUE;
+        for (int i = 0; i < userAuthorizations.size(); i++) {
+            expiresIn = Math.min(expiresIn, issueToken(options.getUsers().get(i), userAuthorizations.get(i)));
+        }
+        return Math.min(expiresIn, issueToken(options.getAdmin(), adminAuthorization));
+    }
+
+    private long issueToken(LoadOptions.Credentials credentials, AtomicReference<String> authorization) {
+        Response response = send(authorize(new HttpPost(uri("/auth/token")), basic(credentials)));
+        if (response == null || response.getStatus() != 200) {
+            throw new IllegalStateException("Could not get a token for " + credentials + " from " + options.getBaseUrl()
+                    + (response == null ? "" : ", status " + response.getStatus()));
+        }
+        TokenResponse token = read(response.getBody(), TokenResponse.class);
+        authorization.set(token.getTokenType() + " " + token.getToken());
+        return token.getExpiresIn();
+    }
+
+    /**
+     * Fills the pool from the keyset pages, so the measured phase does not start with an empty table.
+     */
+    private void seed() {
+        String after = null;
+        while (pool.size() < options.getSeedAnimes()) {
+            String uri = "/animes?limit=" + SEED_PAGE_SIZE + (after == null ? "" : "&after=" + encode(after));
+            Response response = send(get(uri, userAuthorizations.get(0).get()));
+            if (response == null || response.getStatus() != 200) {
+                throw new IllegalStateException("Could not read animes from " + options.getBaseUrl()
+                        + (response == null ? "" : ", status " + response.getStatus()));
+            }
+            AnimeCursorPage page = read(response.getBody(), AnimeCursorPage.class);
+            page.getContent().forEach(pool::add);
+            if (page.getNextCursor() == null) {
+                break;
+            }
+            after = page.getNextCursor();
+        }
+    }
+
+    private void runPhase(Duration duration, LatencyStats stats, boolean printProgress) throws InterruptedException {
+        long phaseStart = System.nanoTime();
+        long phaseEnd = phaseStart + duration.toNanos();
+        long intervalNanos = options.isClosedLoop() ? 0 : (long) (1_000_000_000L / options.getRate());
+        AtomicLong nextSlot = new AtomicLong();
+
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+        progress.scheduleAtFixedRate(() -> {
+            Histogram interval = stats.drain();
+            if (printProgress) {
+                log.info("{} req/s, p50 {} ms, p99 {} ms, max {} ms",
+                        interval.getTotalCount() / REPORT_INTERVAL_SECONDS,
+                        LatencyStats.millis(interval, 50), LatencyStats.millis(interval, 99),
+                        interval.getMaxValue() / 1_000_000.0);
+            }
+        }, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.getConcurrency(); i++) {
+            AtomicReference<String> authorization = userAuthorizations.get(i % userAuthorizations.size());
+            Thread worker = new Thread(() -> {
+                Random random = ThreadLocalRandom.current();
+                while (true) {
+                    long intended;
+                    if (options.isClosedLoop()) {
+                        intended = System.nanoTime();
+                        if (intended >= phaseEnd) {
+                            return;
+                        }
+                    } else {
+                        intended = phaseStart + nextSlot.getAndIncrement() * intervalNanos;
+                        if (intended >= phaseEnd) {
+                            return;
+                        }
+                        long wait = intended - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    }
+                    execute(options.getMix().next(random), authorization.get(), random, intended, stats);
+                }
+            }, "loadgen-worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        progress.shutdownNow();
+    }
+
+    private void execute(Operation operation, String authorization, Random random, long intended, LatencyStats stats) {
+        Anime anime = null;
+        if (operation == Operation.DELETE) {
+            anime = pool.take(random).orElse(null);
+        } else if (operation == Operation.BY_ID || operation == Operation.FIND || operation == Operation.REPLACE) {
+            anime = pool.pick(random).orElse(null);
+        }
+        if (anime == null && operation != Operation.LIST && operation != Operation.ALL) {
+            operation = Operation.SAVE;
+        }
+
+        HttpRequestBase request = request(operation, anime, authorization, random);
+        long sent = System.nanoTime();
+        Response response = send(request);
+        long done = System.nanoTime();
+
+        boolean success = response != null && (response.getStatus() / 100 == 2 || response.getStatus() == 304);
+        stats.record(operation, done - intended, done - sent, success);
+        if (success && operation == Operation.SAVE) {
+            pool.add(read(response.getBody(), Anime.class));
+        } else if (!success && operation == Operation.DELETE) {
+            pool.add(anime);
+        }
+    }
+
+    private HttpRequestBase request(Operation operation, Anime anime, String authorization, Random random) {
+        switch (operation) {
+            case LIST:
+                return get("/animes?page=" + random.nextInt(10) + "&size=20", authorization);
+            case ALL:
+                return get("/animes/all", authorization);
+            case BY_ID:
+                return get("/animes/by-id/" + anime.getId(), authorization);
+            case FIND:
+                return get("/animes/find?name=" + encode(anime.getName()), authorization);
+            case SAVE:
+                return json(new HttpPost(uri("/animes")), Map.of("name", "Load " + Long.toHexString(random.nextLong())),
+                        authorization);
+            case REPLACE:
+                return json(new HttpPut(uri("/animes")), Map.of("id", anime.getId(), "name", anime.getName()),
+                        authorization);
+            case DELETE:
+                return authorize(new HttpDelete(uri("/animes/admin/" + anime.getId())), adminAuthorization.get());
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    private HttpRequestBase get(String path, String authorization) {
+        return authorize(new HttpGet(uri(path)), authorization);
+    }
+
+    private HttpRequestBase json(HttpEntityEnclosingRequestBase request, Object body, String authorization) {
+        try {
+            request.setEntity(new ByteArrayEntity(mapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON));
+            return authorize(request, authorization);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HttpRequestBase authorize(HttpRequestBase request, String authorization) {
+        request.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+        return request;
+    }
+
+    private String uri(String path) {
+        return options.getBaseUrl() + path;
+    }
+
+    /**
+     * Sends and reads the whole body, transport failures and timeouts come back as null and count as errors.
+     */
+    private Response send(HttpRequestBase request) {
+        try {
+            return httpClient.execute(request, response -> new Response(response.getStatusLine().getStatusCode(),
+                    response.getEntity() == null ? "" : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            log.debug("{} {} failed: {}", request.getMethod(), request.getURI(), e.toString());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return mapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected response body " + body, e);
+        }
+    }
+
+    private static String basic(LoadOptions.Credentials credentials) {
+        String token = credentials.getUsername() + ":" + credentials.getPassword();
+        return "Basic " + Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @Value
+    private static class Response {
+        int status;
+        String body;
+    }
+}
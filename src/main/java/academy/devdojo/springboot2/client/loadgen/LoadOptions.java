@@ -0,0 +1,97 @@
+package academy.devdojo.springboot2.client.loadgen;
+
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Command line options of the load generator, all given as --name=value.
+ */
+@Value
+@Builder
+public class LoadOptions {
+    static final String DEFAULT_MIX = "list:30,all:2,by-id:40,find:15,save:6,replace:5,delete:2";
+
+    String baseUrl;
+    int concurrency;
+    /**
+     * Requests per second over all workers, 0 runs closed loop where every worker sends as fast as it gets answers.
+     */
+    double rate;
+    Duration warmup;
+    Duration duration;
+    OperationMix mix;
+    List<Credentials> users;
+    Credentials admin;
+    int seedAnimes;
+    Duration timeout;
+    /**
+     * How the workers authenticate, see {@link Auth}.
+     */
+    Auth auth;
+
+    public static LoadOptions parse(String[] args) {
+        SimpleCommandLinePropertySource source = new SimpleCommandLinePropertySource(args);
+        return LoadOptions.builder()
+                .baseUrl(get(source, "base-url", "http://localhost:8080"))
+                .concurrency(Integer.parseInt(get(source, "concurrency", "16")))
+                .rate(Double.parseDouble(get(source, "rate", "0")))
+                .warmup(DurationStyle.detectAndParse(get(source, "warmup", "10s")))
+                .duration(DurationStyle.detectAndParse(get(source, "duration", "60s")))
+                .mix(OperationMix.parse(get(source, "mix", DEFAULT_MIX)))
+                .users(Arrays.stream(get(source, "users", "devdojo2:academy").split(","))
+                        .map(Credentials::parse)
+                        .collect(Collectors.toList()))
+                .admin(Credentials.parse(get(source, "admin", "leonardo2:academy")))
+                .seedAnimes(Integer.parseInt(get(source, "seed-animes", "1000")))
+                .timeout(DurationStyle.detectAndParse(get(source, "timeout", "10s")))
+                .auth(Auth.valueOf(get(source, "auth", "basic").toUpperCase()))
+                .build();
+    }
+
+    public boolean isClosedLoop() {
+        return rate <= 0;
+    }
+
+    private static String get(SimpleCommandLinePropertySource source, String name, String defaultValue) {
+        String value = source.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+
+    public enum Auth {
+        /**
+         * HTTP Basic on every request, the server checks the password (or its authentication cache) each time.
+         */
+        BASIC,
+        /**
+         * The credentials are exchanged once at POST /auth/token and the token is sent as a bearer,
+         * needs devdojo.security.token.enabled on the server.
+         */
+        TOKEN
+    }
+
+    @Value
+    public static class Credentials {
+        String username;
+        String password;
+
+        static Credentials parse(String value) {
+            int separator = value.indexOf(':');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Users look like username:password, got '" + value + "'");
+            }
+            return new Credentials(value.substring(0, separator).trim(), value.substring(separator + 1));
+        }
+
+        @Override
+        public String toString() {
+            return username;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package academy.devdojo.springboot2.client.loadgen;
+
+import java.util.Arrays;
+
+/**
+ * The /animes endpoints the load generator can call, {@code key} is the name used in --mix.
+ */
+public enum Operation {
+    LIST("list"),
+    ALL("all"),
+    BY_ID("by-id"),
+    FIND("find"),
+    SAVE("save"),
+    REPLACE("replace"),
+    DELETE("delete");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public static Operation fromKey(String key) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation '" + key + "', use one of "
+                        + Arrays.toString(Arrays.stream(values()).map(Operation::getKey).toArray())));
+    }
+}
@@ -0,0 +1,17 @@
+package academy.devdojo.springboot2.coalescing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Concurrent calls of the method with equal arguments share one execution, see {@link CoalescingAspect}.
+ * Only for reads whose result every caller may see, the arguments must implement equals and hashCode.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+}
@@ -0,0 +1,116 @@
+package academy.devdojo.springboot2.coalescing;
+
+import academy.devdojo.springboot2.bulkhead.Bulkhead;
+import academy.devdojo.springboot2.bulkhead.BulkheadAspect;
+import academy.devdojo.springboot2.bulkhead.BulkheadProperties;
+import academy.devdojo.springboot2.exception.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Identical concurrent {@link Coalesced} reads share one in-flight call, so a trending anime costs one query
+ * instead of one per request. All callers get the same result instance and the same exception.
+ * <p>
+ * Ordered inside the cache, which answers before any call is made, and outside the bulkhead, so joined callers
+ * hold no permit. A joined caller may get a result read just before its own latest write, the same staleness
+ * it would get from the cache. A joined caller waits no longer than the acquire timeout of the method's bulkhead
+ * for the running call to get its permit, as it would for its own, and is then rejected with
+ * {@link BulkheadFullException}. Once the permit is held it waits for the query however long it takes, a slow
+ * query fails nobody that would not have waited for it anyway.
+ * devdojo.coalescing.calls counts calls by method and outcome, executed, joined or timed-out, joined over all is
+ * the coalescing ratio. devdojo.coalescing.inflight is the number of calls running.
+ */
+@Aspect
+@Component
+@Order(CoalescingAspect.ORDER)
+public class CoalescingAspect {
+    public static final int ORDER = BulkheadAspect.ORDER - 50;
+    public static final String CALLS_COUNTER = "devdojo.coalescing.calls";
+    public static final String INFLIGHT_GAUGE = "devdojo.coalescing.inflight";
+
+    private final MeterRegistry meterRegistry;
+    private final BulkheadProperties bulkheadProperties;
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final Map<Method, CoalescedMethod> methods = new ConcurrentHashMap<>();
+
+    public CoalescingAspect(MeterRegistry meterRegistry, BulkheadProperties bulkheadProperties) {
+        this.meterRegistry = meterRegistry;
+        this.bulkheadProperties = bulkheadProperties;
+        Gauge.builder(INFLIGHT_GAUGE, singleFlight, SingleFlight::getInflight).register(meterRegistry);
+    }
+
+    @Around("@annotation(academy.devdojo.springboot2.coalescing.Coalesced)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        List<Object> key = new ArrayList<>(joinPoint.getArgs().length + 1);
+        key.add(method);
+        key.addAll(Arrays.asList(joinPoint.getArgs()));
+        CoalescedMethod coalescedMethod = methods.computeIfAbsent(method, CoalescedMethod::new);
+        try {
+            return singleFlight.execute(key, admitted -> proceed(joinPoint, coalescedMethod, admitted), coalescedMethod,
+                    coalescedMethod.admissionTimeoutNanos);
+        } catch (TimeoutException e) {
+            coalescedMethod.timedOut.increment();
+            throw new BulkheadFullException(coalescedMethod.bulkhead);
+        }
+    }
+
+    /**
+     * The call is admitted once it holds the permit of its bulkhead, right away when it has none.
+     */
+    private static Object proceed(ProceedingJoinPoint joinPoint, CoalescedMethod coalescedMethod, Runnable admitted)
+            throws Throwable {
+        if (!coalescedMethod.hasBulkhead) {
+            admitted.run();
+            return joinPoint.proceed();
+        }
+        BulkheadAspect.onPermitAcquired(admitted);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            BulkheadAspect.onPermitAcquired(null);
+        }
+    }
+
+    private class CoalescedMethod implements SingleFlight.Listener {
+        private final boolean hasBulkhead;
+        private final String bulkhead;
+        private final long admissionTimeoutNanos;
+        private final Counter executed;
+        private final Counter joined;
+        private final Counter timedOut;
+
+        CoalescedMethod(Method method) {
+            String methodName = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            Bulkhead annotation = method.getAnnotation(Bulkhead.class);
+            this.hasBulkhead = annotation != null;
+            this.bulkhead = annotation == null ? methodName : annotation.value();
+            this.admissionTimeoutNanos = bulkheadProperties.getLimits()
+                    .getOrDefault(bulkhead, new BulkheadProperties.Limit())
+                    .getAcquireTimeout().toNanos();
+            this.executed = meterRegistry.counter(CALLS_COUNTER, "method", methodName, "outcome", "executed");
+            this.joined = meterRegistry.counter(CALLS_COUNTER, "method", methodName, "outcome", "joined");
+            this.timedOut = meterRegistry.counter(CALLS_COUNTER, "method", methodName, "outcome", "timed-out");
+        }
+
+        @Override
+        public void onCall(boolean isJoined) {
+            (isJoined ? joined : executed).increment();
+        }
+    }
+}
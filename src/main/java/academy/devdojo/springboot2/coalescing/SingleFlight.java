@@ -0,0 +1,77 @@
+package academy.devdojo.springboot2.coalescing;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs one call per key at a time, callers arriving while it runs wait for it and get its result or exception.
+ * Nothing is remembered once the call completes, the next caller runs it again.
+ * A call is admitted once it got past whatever it queues for first, e.g. a bulkhead permit. A waiting caller gives
+ * up with a {@link TimeoutException} when the call is not admitted within the admission timeout, the call itself
+ * goes on. Once it is admitted callers wait for it as long as it runs, as they would for their own call.
+ */
+public class SingleFlight {
+    private final Map<Object, Flight> inflight = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface Call {
+        /**
+         * @param admitted to run once the call is admitted, the callers waiting for it stop counting the timeout
+         */
+        Object run(Runnable admitted) throws Throwable;
+    }
+
+    /**
+     * Tells whether the caller ran the call or joined one in flight.
+     */
+    public interface Listener {
+        void onCall(boolean joined);
+    }
+
+    public Object execute(Object key, Call call, Listener listener, long admissionTimeoutNanos) throws Throwable {
+        Flight flight = new Flight();
+        Flight running = inflight.putIfAbsent(key, flight);
+        if (running != null) {
+            listener.onCall(true);
+            return running.join(admissionTimeoutNanos);
+        }
+        listener.onCall(false);
+        try {
+            Object result = call.run(flight::admit);
+            flight.result.complete(result);
+            return result;
+        } catch (Throwable e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, flight);
+            flight.admit();
+        }
+    }
+
+    public int getInflight() {
+        return inflight.size();
+    }
+
+    private static class Flight {
+        private final CompletableFuture<Void> admitted = new CompletableFuture<>();
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        void admit() {
+            admitted.complete(null);
+        }
+
+        Object join(long admissionTimeoutNanos) throws Throwable {
+            try {
+                admitted.get(admissionTimeoutNanos, TimeUnit.NANOSECONDS);
+                return result.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
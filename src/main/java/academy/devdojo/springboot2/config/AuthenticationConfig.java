@@ -0,0 +1,65 @@
+package academy.devdojo.springboot2.config;
+
+import academy.devdojo.springboot2.security.AuthenticationCache;
+import academy.devdojo.springboot2.security.CachingAuthenticationProvider;
+import academy.devdojo.springboot2.security.TimedPasswordEncoder;
+import academy.devdojo.springboot2.service.DevdojoUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.util.Arrays;
+
+/**
+ * Users and password checks shared by the servlet {@link SecurityConfig} and the ReactiveSecurityConfig of the
+ * reactive Maven profile.
+ */
+@Configuration
+@Log4j2
+public class AuthenticationConfig {
+
+    /**
+     * Both user sources sit behind the {@link CachingAuthenticationProvider}, so a repeated
+     * username/password pair skips BCrypt and the user lookup of every provider.
+     */
+    @Bean
+    public CachingAuthenticationProvider cachingAuthenticationProvider(DevdojoUserDetailsService devdojoUserDetailsService,
+                                                                       AuthenticationCache authenticationCache,
+                                                                       MeterRegistry meterRegistry) {
+        PasswordEncoder passwordEncoder = new TimedPasswordEncoder(
+                PasswordEncoderFactories.createDelegatingPasswordEncoder(), meterRegistry);
+        log.info("Password enconded {}", passwordEncoder.encode("academy"));
+
+        InMemoryUserDetailsManager inMemoryUsers = new InMemoryUserDetailsManager(
+                User.withUsername("leonardo2")
+                        .password(passwordEncoder.encode("academy"))
+                        .roles("USER", "ADMIN")
+                        .build(),
+                User.withUsername("devdojo2")
+                        .password(passwordEncoder.encode("academy"))
+                        .roles("USER")
+                        .build());
+
+        ProviderManager userProviders = new ProviderManager(Arrays.asList(
+                daoAuthenticationProvider(inMemoryUsers, passwordEncoder),
+                daoAuthenticationProvider(devdojoUserDetailsService, passwordEncoder)));
+
+        return new CachingAuthenticationProvider(userProviders, authenticationCache);
+    }
+
+    private static DaoAuthenticationProvider daoAuthenticationProvider(UserDetailsService userDetailsService,
+                                                                       PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setUserDetailsService(userDetailsService);
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        return daoAuthenticationProvider;
+    }
+}
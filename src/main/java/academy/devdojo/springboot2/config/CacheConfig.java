@@ -0,0 +1,17 @@
+package academy.devdojo.springboot2.config;
+
+import academy.devdojo.springboot2.coalescing.CoalescingAspect;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches are created from spring.cache.cache-names so Spring Boot binds their hit/miss/eviction
+ * statistics to the Micrometer registry on startup. Caching wraps request coalescing and the bulkheads,
+ * so cache hits neither wait for a call in flight nor need a permit.
+ */
+@Configuration
+@EnableCaching(proxyTargetClass = true, order = CoalescingAspect.ORDER - 50)
+public class CacheConfig {
+    public static final String ANIMES_CACHE = "animes";
+    public static final String USERS_CACHE = "users";
+}
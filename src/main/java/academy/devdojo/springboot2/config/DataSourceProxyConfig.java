@@ -0,0 +1,37 @@
+package academy.devdojo.springboot2.config;
+
+import academy.devdojo.springboot2.metrics.SqlStatisticsListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Wraps every DataSource in a datasource-proxy so the {@link SqlStatisticsListener} sees each JDBC execution,
+ * Hibernate, Flyway and the Hikari metrics keep working through it.
+ */
+@Configuration
+public class DataSourceProxyConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor(
+            @Value("${devdojo.sql.slow-query-threshold:200ms}") Duration slowQueryThreshold) {
+        SqlStatisticsListener sqlStatisticsListener = new SqlStatisticsListener(slowQueryThreshold);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                            .listener(sqlStatisticsListener)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package academy.devdojo.springboot2.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * devdojo.datasource.replicas, the read replicas of spring.datasource, see {@link ReplicaRoutingConfig}.
+ */
+@Data
+@ConfigurationProperties("devdojo.datasource")
+public class ReplicaDataSourceProperties {
+    private List<Replica> replicas = new ArrayList<>();
+    /**
+     * How long the reads of a user stay on the primary after their last write, keep it above the replication lag.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        /**
+         * Time to wait for a connection before the read falls back to the primary.
+         */
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+    }
+}
@@ -1,23 +1,37 @@
 package academy.devdojo.springboot2.config;
 
-import academy.devdojo.springboot2.service.DevdojoUserDetailsService;
+import academy.devdojo.springboot2.audit.PrincipalCaptureFilter;
+import academy.devdojo.springboot2.security.BulkheadAuthenticationEntryPoint;
+import academy.devdojo.springboot2.security.CachingAuthenticationProvider;
+import academy.devdojo.springboot2.security.TokenAuthenticationFilter;
+import academy.devdojo.springboot2.security.TokenService;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.factory.PasswordEncoderFactories;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.access.ExceptionTranslationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 @EnableWebSecurity
-@Log4j2
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 @RequiredArgsConstructor
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
-    private final DevdojoUserDetailsService devdojoUserDetailsService;
+    private static final String REALM_NAME = "Realm";
+
+    private final CachingAuthenticationProvider cachingAuthenticationProvider;
+    private final TokenService tokenService;
+
+    @Value("${devdojo.security.token.enabled:false}")
+    private boolean tokenEnabled;
 
     /**
      * BasicAuthenticationFilter
@@ -26,6 +40,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
      * DefaultLogoutPageGenerateFilter
      * FilterSecurityInterceptor
      * Authentication -> Authorization
+     * With devdojo.security.token.enabled no HttpSession is created, clients exchange their HTTP Basic
+     * credentials once at POST /auth/token and send the token as a bearer on the following requests.
+     * POST /auth/token ignores bearer tokens, a token cannot renew itself.
      * @param http
      * @throws Exception
      */
@@ -40,25 +57,33 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .anyRequest()
                 .authenticated()
                 .and()
-                .formLogin()
+                .httpBasic()
+                .authenticationEntryPoint(authenticationEntryPoint())
                 .and()
-                .httpBasic();
-    }
+                .addFilterBefore(new PrincipalCaptureFilter(), ExceptionTranslationFilter.class);
 
-    @Override
-    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
-        log.info("Password enconded {}", passwordEncoder.encode("academy"));
+        if (tokenEnabled) {
+            http.sessionManagement()
+                    .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                    .and()
+                    .addFilterBefore(new TokenAuthenticationFilter(tokenService, new AntPathRequestMatcher("/auth/token")),
+                            BasicAuthenticationFilter.class);
+        } else {
+            http.formLogin();
+        }
+    }
 
-        auth.inMemoryAuthentication()
-                .withUser("leonardo2")
-                .password(passwordEncoder.encode("academy"))
-                .roles("USER", "ADMIN")
-                .and()
-                .withUser("devdojo2")
-                .password(passwordEncoder.encode("academy"))
-                .roles("USER");
+    /**
+     * The HTTP Basic challenge, except for logins rejected by the auth bulkhead.
+     */
+    private static BulkheadAuthenticationEntryPoint authenticationEntryPoint() {
+        BasicAuthenticationEntryPoint basicAuthenticationEntryPoint = new BasicAuthenticationEntryPoint();
+        basicAuthenticationEntryPoint.setRealmName(REALM_NAME);
+        return new BulkheadAuthenticationEntryPoint(basicAuthenticationEntryPoint);
+    }
 
-        auth.userDetailsService(devdojoUserDetailsService).passwordEncoder(passwordEncoder);
+    @Override
+    protected void configure(AuthenticationManagerBuilder auth) {
+        auth.authenticationProvider(cachingAuthenticationProvider);
     }
 }
@@ -1,19 +1,36 @@
 package academy.devdojo.springboot2.configurer;
 
+import academy.devdojo.springboot2.converter.AnimeProtobufHttpMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.List;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class DevDojoWebMvcConfigurer implements WebMvcConfigurer {
+    @Value("${devdojo.anime.page.max-size:100}")
+    private int maxPageSize;
+
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
         PageableHandlerMethodArgumentResolver pageHandler = new PageableHandlerMethodArgumentResolver();
         pageHandler.setFallbackPageable(PageRequest.of(0, 5));
+        pageHandler.setMaxPageSize(maxPageSize);
         resolvers.add(pageHandler);
     }
+
+    /**
+     * Appended after the Jackson converters, requests accepting any type keep getting JSON.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new AnimeProtobufHttpMessageConverter());
+    }
 }
@@ -1,57 +1,141 @@
 package academy.devdojo.springboot2.controller;
 
+import academy.devdojo.springboot2.audit.AccessLogFilter;
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
+import academy.devdojo.springboot2.requests.AnimePatchRequestBody;
 import academy.devdojo.springboot2.requests.AnimePostRequestBody;
 import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.responses.AnimeBatchResponse;
+import academy.devdojo.springboot2.responses.AnimeBulkDeleteResponse;
+import academy.devdojo.springboot2.responses.AnimeCursorPage;
+import academy.devdojo.springboot2.service.AnimeBatchService;
+import academy.devdojo.springboot2.service.AnimeSearchService;
 import academy.devdojo.springboot2.service.AnimeService;
 import academy.devdojo.springboot2.util.DateUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("animes")
 @Log4j2
 @RequiredArgsConstructor
 public class AnimeController {
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final int STREAM_FLUSH_EVERY_ROWS = 100;
+
     private final DateUtil dateUtil;
     private final AnimeService animeService;
+    private final AnimeBatchService animeBatchService;
+    private final AnimeSearchService animeSearchService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<Page<Anime>> list(Pageable pageable){
         return ResponseEntity.ok(animeService.listAll(pageable));
     }
 
+    @GetMapping(params = "limit")
+    @Operation(summary = "List animes using keyset pagination",
+            description = "Pass the nextCursor of the previous response as the parameter after, the limit is capped by the server",
+            tags = {"anime"})
+    public ResponseEntity<AnimeCursorPage> listByCursor(@RequestParam(required = false) String after,
+                                                        @RequestParam int limit){
+        return ResponseEntity.ok(animeService.listAfter(after, limit));
+    }
+
+    /**
+     * A cursor without a limit is still keyset pagination, without this mapping it would fall through to the
+     * page-based {@link #list(Pageable)} and silently restart from the first page.
+     */
+    @GetMapping(params = {"after", "!limit"})
+    @Operation(summary = "List animes using keyset pagination with the default limit",
+            description = "Same as passing limit=" + AnimeService.DEFAULT_CURSOR_LIMIT, tags = {"anime"})
+    public ResponseEntity<AnimeCursorPage> listByCursor(@RequestParam String after){
+        return listByCursor(after, AnimeService.DEFAULT_CURSOR_LIMIT);
+    }
+
     @GetMapping(path = "/all")
     @Operation(summary = "List all animes paginated", description = "The default size is 20, use the parameter size to change the default value",
     tags = {"anime"})
-    public ResponseEntity<List<Anime>> listAll(){
-        return ResponseEntity.ok(animeService.listAllNoPageable());
+    public ResponseEntity<List<Anime>> listAll(WebRequest webRequest){
+        // weak, the gzipped body is not byte for byte the same and Tomcat does not compress under a strong ETag
+        String eTag = "W/\"" + animeService.tableVersion() + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(animeService.listAllNoPageable());
+    }
+
+    @GetMapping(path = "/all", produces = APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all animes as newline delimited json",
+            description = "Rows are written as they are read from the database, memory use does not depend on the number of animes",
+            tags = {"anime"})
+    public ResponseEntity<StreamingResponseBody> streamAll(){
+        ObjectWriter animeWriter = objectMapper.writerFor(Anime.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                int[] rows = {0};
+                animeService.streamAll(anime -> {
+                    try {
+                        animeWriter.writeValue(generator, anime);
+                        generator.writeRaw('\n');
+                        if (++rows[0] % STREAM_FLUSH_EVERY_ROWS == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
     }
 
     @GetMapping(path = "/{id}")
     public ResponseEntity<Anime> findById(@PathVariable long id){
-        return ResponseEntity.ok(animeService.findByIdOrThrowBadRequestException(id));
+        Anime anime = animeService.findByIdOrThrowBadRequestException(id);
+        return ResponseEntity.ok().eTag(eTag(anime.getVersion())).body(anime);
     }
 
+    /**
+     * The principal is written to the access log by {@link AccessLogFilter}, off the request thread and without credentials.
+     */
     @GetMapping(path = "by-id/{id}")
-    public ResponseEntity<Anime> findByIdAuthenticationPrincipal(@PathVariable long id,
-                                                                 @AuthenticationPrincipal UserDetails userDetails){
-        log.info(userDetails);
-        return ResponseEntity.ok(animeService.findByIdOrThrowBadRequestException(id));
+    public ResponseEntity<Anime> findByIdAuthenticationPrincipal(@PathVariable long id){
+        Anime anime = animeService.findByIdOrThrowBadRequestException(id);
+        return ResponseEntity.ok().eTag(eTag(anime.getVersion())).body(anime);
     }
 
     @GetMapping(path = "/find")
@@ -59,11 +143,33 @@ public class AnimeController {
         return ResponseEntity.ok(animeService.findByName(name));
     }
 
+    @GetMapping(path = "/search")
+    @Operation(summary = "Search animes by name",
+            description = "Results are ranked by relevance, words match as typed, as a prefix or with small typos",
+            tags = {"anime"})
+    public ResponseEntity<Page<Anime>> search(@RequestParam String q, Pageable pageable){
+        return ResponseEntity.ok(animeSearchService.search(q, pageable));
+    }
+
     @PostMapping
     public ResponseEntity<Anime> save(@RequestBody @Valid AnimePostRequestBody animePostRequestBody){
         return new ResponseEntity<>(animeService.save(animePostRequestBody), HttpStatus.CREATED);
     }
 
+    @PostMapping(path = "/batch")
+    @Operation(summary = "Create animes in bulk",
+            description = "Every item is validated on its own, the response reports the result of each item in request order",
+            tags = {"anime"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Every anime was created"),
+            @ApiResponse(responseCode = "207", description = "Some animes were invalid and were not created"),
+    })
+    public ResponseEntity<AnimeBatchResponse> saveAll(@RequestBody List<AnimePostRequestBody> animePostRequestBodies){
+        AnimeBatchResponse animeBatchResponse = animeBatchService.saveAll(animePostRequestBodies);
+        HttpStatus status = animeBatchResponse.getInvalid() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<>(animeBatchResponse, status);
+    }
+
     @DeleteMapping(path = "/admin/{id}")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Succesful operation"),
@@ -74,10 +180,72 @@ public class AnimeController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    @DeleteMapping(path = "/admin", params = "ids")
+    @Operation(summary = "Delete animes in bulk",
+            description = "Pass the ids as ids=1,2,3, ids that do not exist are skipped and all deletes share one transaction",
+            tags = {"anime"})
+    public ResponseEntity<AnimeBulkDeleteResponse> deleteAll(@RequestParam List<Long> ids){
+        return ResponseEntity.ok(animeService.deleteAll(ids));
+    }
+
     @PutMapping
-    public ResponseEntity<Void> replace(@RequestBody AnimePutRequestBody animePutRequestBody){
-        animeService.replace(animePutRequestBody);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Succesful operation, with If-Match the ETag header holds the new version"),
+            @ApiResponse(responseCode = "400", description = "When anime Does not exist in the database or the body is invalid"),
+            @ApiResponse(responseCode = "412", description = "When If-Match does not hold the current ETag of the anime"),
+    })
+    public ResponseEntity<Void> replace(@RequestBody @Valid AnimePutRequestBody animePutRequestBody,
+                                        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Long version = animeService.replace(animePutRequestBody, expectedVersion(ifMatch));
+        return noContent(version);
+    }
+
+    @PatchMapping(path = "/{id}")
+    @Operation(summary = "Update some fields of an anime",
+            description = "Only the fields present in the body are written, send If-Match to update only an unchanged anime",
+            tags = {"anime"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Succesful operation, with If-Match the ETag header holds the new version"),
+            @ApiResponse(responseCode = "400", description = "When anime Does not exist in the database or the body is empty"),
+            @ApiResponse(responseCode = "412", description = "When If-Match does not hold the current ETag of the anime"),
+    })
+    public ResponseEntity<Void> update(@PathVariable long id,
+                                       @RequestBody @Valid AnimePatchRequestBody animePatchRequestBody,
+                                       @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Long version = animeService.update(id, animePatchRequestBody, expectedVersion(ifMatch));
+        return noContent(version);
+    }
+
+    private static ResponseEntity<Void> noContent(Long version) {
+        if (version == null) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return ResponseEntity.noContent().eTag(eTag(version)).build();
+    }
+
+    /**
+     * Strong ETag of a single anime, GETs answered with a matching If-None-Match get a 304 before the body is written.
+     */
+    static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Only a single strong ETag is supported, anything else can never match the current version.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        try {
+            if (eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+                return Long.parseLong(eTag.substring(1, eTag.length() - 1));
+            }
+        } catch (NumberFormatException ignored) {
+            // falls through to the precondition failure below
+        }
+        throw new PreconditionFailedException("If-Match must be the strong ETag returned by GET /animes/{id}");
     }
 
 }
@@ -0,0 +1,32 @@
+package academy.devdojo.springboot2.controller;
+
+import academy.devdojo.springboot2.responses.TokenResponse;
+import academy.devdojo.springboot2.security.TokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("auth")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "devdojo.security.token.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AuthController {
+    private final TokenService tokenService;
+
+    @PostMapping(path = "/token")
+    @Operation(summary = "Exchange the HTTP Basic credentials for a short lived bearer token", tags = {"auth"})
+    public ResponseEntity<TokenResponse> token(Authentication authentication){
+        return ResponseEntity.ok(TokenResponse.builder()
+                .token(tokenService.issue(authentication))
+                .tokenType("Bearer")
+                .expiresIn(tokenService.getTtlSeconds())
+                .build());
+    }
+}
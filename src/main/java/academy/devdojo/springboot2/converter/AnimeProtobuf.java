@@ -0,0 +1,151 @@
+package academy.devdojo.springboot2.converter;
+
+import academy.devdojo.springboot2.domain.Anime;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import wrapper.PageableResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes and reads the messages of src/main/proto/anime.proto straight from and to the domain classes,
+ * without generated message classes or an intermediate copy of the data.
+ */
+public final class AnimeProtobuf {
+    private static final int ANIME_ID = 1;
+    private static final int ANIME_NAME = 2;
+    private static final int ANIME_VERSION = 3;
+    private static final int LIST_ANIMES = 1;
+    private static final int PAGE_CONTENT = 1;
+    private static final int PAGE_NUMBER = 2;
+    private static final int PAGE_SIZE = 3;
+    private static final int PAGE_TOTAL_ELEMENTS = 4;
+
+    private AnimeProtobuf() {
+    }
+
+    public static void writeAnime(Anime anime, CodedOutputStream output) throws IOException {
+        if (anime.getId() != null) {
+            output.writeInt64(ANIME_ID, anime.getId());
+        }
+        if (anime.getName() != null) {
+            output.writeString(ANIME_NAME, anime.getName());
+        }
+        if (anime.getVersion() != null) {
+            output.writeInt64(ANIME_VERSION, anime.getVersion());
+        }
+    }
+
+    public static void writeAnimes(Collection<Anime> animes, CodedOutputStream output) throws IOException {
+        writeEmbedded(LIST_ANIMES, animes, output);
+    }
+
+    public static void writePage(Page<Anime> page, CodedOutputStream output) throws IOException {
+        writeEmbedded(PAGE_CONTENT, page.getContent(), output);
+        output.writeInt32(PAGE_NUMBER, page.getNumber());
+        output.writeInt32(PAGE_SIZE, page.getSize());
+        output.writeInt64(PAGE_TOTAL_ELEMENTS, page.getTotalElements());
+    }
+
+    public static Anime readAnime(CodedInputStream input) throws IOException {
+        Anime anime = new Anime();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case ANIME_ID:
+                    anime.setId(input.readInt64());
+                    break;
+                case ANIME_NAME:
+                    anime.setName(input.readString());
+                    break;
+                case ANIME_VERSION:
+                    anime.setVersion(input.readInt64());
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+        }
+        return anime;
+    }
+
+    public static List<Anime> readAnimes(CodedInputStream input) throws IOException {
+        List<Anime> animes = new ArrayList<>();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (WireFormat.getTagFieldNumber(tag) == LIST_ANIMES) {
+                animes.add(readEmbedded(input));
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return animes;
+    }
+
+    public static PageableResponse<Anime> readPage(CodedInputStream input) throws IOException {
+        List<Anime> content = new ArrayList<>();
+        int number = 0;
+        int size = 0;
+        long totalElements = 0;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case PAGE_CONTENT:
+                    content.add(readEmbedded(input));
+                    break;
+                case PAGE_NUMBER:
+                    number = input.readInt32();
+                    break;
+                case PAGE_SIZE:
+                    size = input.readInt32();
+                    break;
+                case PAGE_TOTAL_ELEMENTS:
+                    totalElements = input.readInt64();
+                    break;
+                default:
+                    input.skipField(tag);
+            }
+        }
+        // an unpaged page has no size of its own
+        Page<Anime> page = new PageImpl<>(content, PageRequest.of(number, Math.max(1, size)), totalElements);
+        return new PageableResponse<>(content, number, size, (int) totalElements, page.isLast(), page.isFirst(),
+                page.getTotalPages(), content.size(), null, null);
+    }
+
+    private static void writeEmbedded(int fieldNumber, Collection<Anime> animes, CodedOutputStream output)
+            throws IOException {
+        for (Anime anime : animes) {
+            output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(size(anime));
+            writeAnime(anime, output);
+        }
+    }
+
+    private static Anime readEmbedded(CodedInputStream input) throws IOException {
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        Anime anime = readAnime(input);
+        input.checkLastTagWas(0);
+        input.popLimit(oldLimit);
+        return anime;
+    }
+
+    private static int size(Anime anime) {
+        int size = 0;
+        if (anime.getId() != null) {
+            size += CodedOutputStream.computeInt64Size(ANIME_ID, anime.getId());
+        }
+        if (anime.getName() != null) {
+            size += CodedOutputStream.computeStringSize(ANIME_NAME, anime.getName());
+        }
+        if (anime.getVersion() != null) {
+            size += CodedOutputStream.computeInt64Size(ANIME_VERSION, anime.getVersion());
+        }
+        return size;
+    }
+}
@@ -0,0 +1,102 @@
+package academy.devdojo.springboot2.converter;
+
+import academy.devdojo.springboot2.domain.Anime;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * application/x-protobuf for an {@link Anime}, collections and arrays of them and {@link Page}s of them,
+ * encoded by {@link AnimeProtobuf}. Other bodies, error details included, are left to the other converters.
+ * Registered after the Jackson converters so clients that accept anything keep getting JSON.
+ */
+public class AnimeProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+    private static final int BUFFER_SIZE = 4096;
+
+    public AnimeProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Anime.class == clazz || Anime[].class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return supports(ResolvableType.forType(type)) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return supports(type == null ? ResolvableType.forClass(clazz) : ResolvableType.forType(type)) && canWrite(mediaType);
+    }
+
+    private boolean supports(ResolvableType type) {
+        Class<?> clazz = type.resolve();
+        if (clazz == null) {
+            return false;
+        }
+        if (Collection.class.isAssignableFrom(clazz)) {
+            return type.as(Collection.class).getGeneric(0).resolve() == Anime.class;
+        }
+        if (Page.class.isAssignableFrom(clazz)) {
+            return type.as(Page.class).getGeneric(0).resolve() == Anime.class;
+        }
+        return supports(clazz);
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        Class<?> clazz = ResolvableType.forType(type).resolve(Object.class);
+        CodedInputStream input = CodedInputStream.newInstance(inputMessage.getBody(), BUFFER_SIZE);
+        try {
+            if (Anime.class == clazz) {
+                return AnimeProtobuf.readAnime(input);
+            }
+            if (Page.class.isAssignableFrom(clazz)) {
+                return AnimeProtobuf.readPage(input);
+            }
+            List<Anime> animes = AnimeProtobuf.readAnimes(input);
+            return clazz.isArray() ? animes.toArray(new Anime[0]) : animes;
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Could not read protobuf " + clazz.getSimpleName() + ": "
+                    + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody(), BUFFER_SIZE);
+        if (object instanceof Anime) {
+            AnimeProtobuf.writeAnime((Anime) object, output);
+        } else if (object instanceof Page) {
+            AnimeProtobuf.writePage((Page<Anime>) object, output);
+        } else if (object instanceof Anime[]) {
+            AnimeProtobuf.writeAnimes(Arrays.asList((Anime[]) object), output);
+        } else {
+            AnimeProtobuf.writeAnimes((Collection<Anime>) object, output);
+        }
+        output.flush();
+    }
+}
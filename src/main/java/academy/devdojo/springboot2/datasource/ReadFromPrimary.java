@@ -0,0 +1,18 @@
+package academy.devdojo.springboot2.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Read-only transactions started by the method go to the primary instead of a replica.
+ * Meant for reads whose result outlives the request, like a cache entry, which must not be filled from a lagging
+ * replica: the read-your-writes window only covers the writer, not the cache everyone reads from.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadFromPrimary {
+}
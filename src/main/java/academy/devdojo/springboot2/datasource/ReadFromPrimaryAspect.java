@@ -0,0 +1,24 @@
+package academy.devdojo.springboot2.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies {@link ReadFromPrimary}, a no-op unless the {@link ReplicaRoutingDataSource} is in use.
+ */
+@Aspect
+@Component
+public class ReadFromPrimaryAspect {
+
+    @Around("@annotation(academy.devdojo.springboot2.datasource.ReadFromPrimary)")
+    public Object readFromPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = ReplicaRoutingDataSource.readFromPrimary(true);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRoutingDataSource.readFromPrimary(previous);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package academy.devdojo.springboot2.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+
+/**
+ * Sends read-only transactions to the healthy replicas, round robin, and everything else to the primary.
+ * Connections are fetched lazily at the first statement, when the read-only flag of the transaction is known.
+ * <p>
+ * After a user's write transaction commits, that user's reads stay on the primary for the read-your-writes window,
+ * long enough for the replicas to catch up. A replica is taken out of the rotation when it fails to hand out a
+ * connection or the periodic health check, and comes back once a health check passes again.
+ * Reads that fill a shared cache are sent to the primary with {@link ReadFromPrimary}.
+ * Connections by route are counted in devdojo.datasource.route.
+ */
+@Log4j2
+public class ReplicaRoutingDataSource extends DelegatingDataSource implements Closeable {
+    public static final String PRIMARY = "primary";
+    public static final String ROUTE_COUNTER = "devdojo.datasource.route";
+    public static final String REPLICA_HEALTHY_GAUGE = "devdojo.datasource.replica.healthy";
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final ThreadLocal<Boolean> READ_FROM_PRIMARY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaNames;
+    private final Map<String, Boolean> healthy = new ConcurrentHashMap<>();
+    private final Map<String, Counter> routeCounters = new HashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Cache<String, Boolean> recentWriters;
+    private final Supplier<String> currentUser;
+    private final ScheduledExecutorService healthChecker;
+
+    /**
+     * @param replicas    by name, names are used as the route tag
+     * @param currentUser the user whose writes are read back, null when there is none
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration readYourWritesWindow,
+                                    Duration healthCheckInterval, Supplier<String> currentUser, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.replicaNames = new ArrayList<>(replicas.keySet());
+        this.currentUser = currentUser;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+
+        routeCounters.put(PRIMARY, meterRegistry.counter(ROUTE_COUNTER, "route", PRIMARY));
+        for (String name : replicaNames) {
+            healthy.put(name, true);
+            routeCounters.put(name, meterRegistry.counter(ROUTE_COUNTER, "route", name));
+            Gauge.builder(REPLICA_HEALTHY_GAUGE, healthy, h -> h.get(name) ? 1 : 0)
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        }
+
+        Router router = new Router();
+        Map<Object, Object> targets = new HashMap<>(this.replicas);
+        targets.put(PRIMARY, primary);
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(new LazyConnectionDataSourceProxy(router));
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = healthCheckInterval.toNanos();
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Validates a connection of every replica, runs on the health checker thread.
+     */
+    public void checkHealth() {
+        for (String name : replicaNames) {
+            try (Connection connection = replicas.get(name).getConnection()) {
+                setHealthy(name, connection.isValid(VALIDATION_TIMEOUT_SECONDS), null);
+            } catch (SQLException | RuntimeException e) {
+                setHealthy(name, false, e);
+            }
+        }
+    }
+
+    public boolean isHealthy(String replica) {
+        return healthy.getOrDefault(replica, false);
+    }
+
+    private void setHealthy(String name, boolean isHealthy, Exception cause) {
+        Boolean wasHealthy = healthy.put(name, isHealthy);
+        if (Boolean.TRUE.equals(wasHealthy) && !isHealthy) {
+            log.warn("Replica {} is down, its reads go to the other replicas or the primary", name, cause);
+        } else if (Boolean.FALSE.equals(wasHealthy) && isHealthy) {
+            log.info("Replica {} is back in the rotation", name);
+        }
+    }
+
+    /**
+     * Sends the read-only transactions of this thread to the primary, see {@link ReadFromPrimary}.
+     *
+     * @return the previous setting, to be restored afterwards
+     */
+    static boolean readFromPrimary(boolean readFromPrimary) {
+        boolean previous = READ_FROM_PRIMARY.get();
+        READ_FROM_PRIMARY.set(readFromPrimary);
+        return previous;
+    }
+
+    private String route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriteOnCommit();
+            return PRIMARY;
+        }
+        if (READ_FROM_PRIMARY.get()) {
+            return PRIMARY;
+        }
+        String user = currentUser.get();
+        if (user != null && recentWriters.getIfPresent(user) != null) {
+            return PRIMARY;
+        }
+        int size = replicaNames.size();
+        int first = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            String name = replicaNames.get((first + i) % size);
+            if (isHealthy(name)) {
+                return name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    private void rememberWriteOnCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String user = currentUser.get();
+        if (user == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(user, Boolean.TRUE);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        healthChecker.shutdownNow();
+        for (DataSource dataSource : replicas.values()) {
+            closeDataSource(dataSource);
+        }
+        closeDataSource(primary);
+    }
+
+    private static void closeDataSource(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+
+    private class Router extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return route();
+        }
+
+        /**
+         * A replica that cannot hand out a connection leaves the rotation and the read goes to the primary.
+         */
+        @Override
+        public Connection getConnection() throws SQLException {
+            String route = route();
+            routeCounters.get(route).increment();
+            if (PRIMARY.equals(route)) {
+                return primary.getConnection();
+            }
+            try {
+                return replicas.get(route).getConnection();
+            } catch (SQLException e) {
+                setHealthy(route, false, e);
+                routeCounters.get(PRIMARY).increment();
+                return primary.getConnection();
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new UnsupportedOperationException("Replica routing only hands out connections of the pools");
+        }
+    }
+}
@@ -9,6 +9,8 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Version;
 import javax.validation.constraints.NotEmpty;
 
 @Data
@@ -18,11 +20,20 @@ import javax.validation.constraints.NotEmpty;
 @Builder
 
 public class Anime {
+    /**
+     * Pooled sequence instead of IDENTITY so Hibernate can batch inserts, one sequence call reserves 50 ids.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "anime_seq")
+    @SequenceGenerator(name = "anime_seq", sequenceName = "anime_seq", allocationSize = 50)
     private Long id;
     @NotEmpty(message = "The anime name cannot be empty")
     private String name;
+    /**
+     * Bumped on every update, exposed to clients as the ETag of the anime.
+     */
+    @Version
+    private Long version;
 
 
 }
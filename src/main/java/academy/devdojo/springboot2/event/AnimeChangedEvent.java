@@ -0,0 +1,32 @@
+package academy.devdojo.springboot2.event;
+
+import academy.devdojo.springboot2.domain.Anime;
+import lombok.Value;
+
+/**
+ * Published by the anime services after an anime is created, replaced or deleted.
+ */
+@Value
+public class AnimeChangedEvent {
+    long id;
+    /**
+     * Null when the anime was deleted.
+     */
+    String name;
+    /**
+     * Null when the anime was deleted or overwritten without knowing the version it had.
+     */
+    Long version;
+
+    public static AnimeChangedEvent saved(Anime anime) {
+        return new AnimeChangedEvent(anime.getId(), anime.getName(), anime.getVersion());
+    }
+
+    public static AnimeChangedEvent deleted(long id) {
+        return new AnimeChangedEvent(id, null, null);
+    }
+
+    public boolean isDeleted() {
+        return name == null;
+    }
+}
@@ -0,0 +1,21 @@
+package academy.devdojo.springboot2.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Stackless like {@link BadRequestException}, rejections come in bursts exactly when the service is busiest.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BulkheadFullException extends RuntimeException {
+    private final String bulkhead;
+
+    public BulkheadFullException(String bulkhead) {
+        super("Too many concurrent " + bulkhead + " requests, try again later", null, false, false);
+        this.bulkhead = bulkhead;
+    }
+
+    public String getBulkhead() {
+        return bulkhead;
+    }
+}
@@ -0,0 +1,16 @@
+package academy.devdojo.springboot2.exception;
+
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Stackless like {@link BadRequestException}, a stale version is an expected answer rather than a failure.
+ */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException{
+
+    public PreconditionFailedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -2,9 +2,13 @@ package academy.devdojo.springboot2.handler;
 
 import academy.devdojo.springboot2.exception.BadRequestException;
 import academy.devdojo.springboot2.exception.BadRequestExceptionDetails;
+import academy.devdojo.springboot2.exception.BulkheadFullException;
 import academy.devdojo.springboot2.exception.ExceptionDetails;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
 import academy.devdojo.springboot2.exception.ValidationexceptionDetails;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,20 +26,60 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Log4j2
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
+    private static final String BAD_REQUEST_TITLE = "Bad Request Exception, Check the documentation";
+    private static final String BAD_REQUEST_DEVELOPER_MESSAGE = BadRequestException.class.getName();
+    private static final String PRECONDITION_FAILED_TITLE = "Precondition Failed, the anime was modified by someone else";
+    private static final String INVALID_FIELDS_TITLE = "Bad Request Exception, Invalid Fields";
+    private static final String SERVICE_UNAVAILABLE_TITLE = "Service Unavailable, too many concurrent requests";
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * The hottest error path, scanners probing random ids end here. Only the timestamp differs between two
+     * responses for the same miss, the exception itself is shared and carries no stack trace.
+     */
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<BadRequestExceptionDetails> handleBadRequestException(BadRequestException badRequestException){
         return new ResponseEntity<>(
                 BadRequestExceptionDetails.builder()
                         .timestamp(LocalDateTime.now())
                         .status(HttpStatus.BAD_REQUEST.value())
-                        .title("Bad Request Exception, Check the documentation")
+                        .title(BAD_REQUEST_TITLE)
                         .details(badRequestException.getMessage())
-                        .developerMessage(badRequestException.getClass().getName())
+                        .developerMessage(BAD_REQUEST_DEVELOPER_MESSAGE)
                         .build(), HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * A stale If-Match and an update that lost the race on the version column are the same conflict to the client.
+     */
+    @ExceptionHandler({PreconditionFailedException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ExceptionDetails> handlePreconditionFailedException(RuntimeException exception){
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.PRECONDITION_FAILED.value())
+                        .title(PRECONDITION_FAILED_TITLE)
+                        .details(exception.getMessage())
+                        .developerMessage(exception.getClass().getName())
+                        .build(), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ExceptionDetails> handleBulkheadFullException(BulkheadFullException bulkheadFullException){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                        .title(SERVICE_UNAVAILABLE_TITLE)
+                        .details(bulkheadFullException.getMessage())
+                        .developerMessage(BulkheadFullException.class.getName())
+                        .build());
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             MethodArgumentNotValidException exception, HttpHeaders headers, HttpStatus status, WebRequest request) {
@@ -48,21 +92,28 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
                 ValidationexceptionDetails.builder()
                         .timestamp(LocalDateTime.now())
                         .status(HttpStatus.BAD_REQUEST.value())
-                        .title("Bad Request Exception, Invalid Fields")
+                        .title(INVALID_FIELDS_TITLE)
                         .details(exception.getMessage())
                         .developerMessage(exception.getClass().getName())
                         .fields(fields)
                         .fieldsMessage(fieldsMessage)
                         .build(), HttpStatus.BAD_REQUEST);
     }
+
+    /**
+     * Most Spring MVC exceptions (unsupported method, missing parameter, media type) have no cause,
+     * the reason phrase of the status stands in for its message.
+     */
     @Override
     protected ResponseEntity<Object> handleExceptionInternal(
             Exception ex, @Nullable Object body, HttpHeaders headers, HttpStatus status, WebRequest request) {
+        Throwable cause = ex.getCause();
+        String title = cause != null && cause.getMessage() != null ? cause.getMessage() : status.getReasonPhrase();
 
         ExceptionDetails exceptionDetails = ExceptionDetails.builder()
                 .timestamp(LocalDateTime.now())
                 .status(status.value())
-                .title(ex.getCause().getMessage())
+                .title(title)
                 .details(ex.getMessage())
                 .developerMessage(ex.getClass().getName())
                 .build();
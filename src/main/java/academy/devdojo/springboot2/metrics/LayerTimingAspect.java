@@ -0,0 +1,144 @@
+package academy.devdojo.springboot2.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Times every public service method and every repository query, tagged by class, method and exception.
+ * Percentile histograms and SLO buckets come from management.metrics.distribution in application.yml.
+ * Mono and Flux results are timed from subscription until they terminate, not until the method returns.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class LayerTimingAspect {
+    public static final String SERVICE_TIMER = "devdojo.service";
+    public static final String REPOSITORY_TIMER = "devdojo.repository";
+    private static final String REPOSITORY_PACKAGE = "academy.devdojo.springboot2.repository";
+    private static final String NO_EXCEPTION = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, Map<Method, TimedMethod>> timedMethods = new ConcurrentHashMap<>();
+
+    @Around("within(academy.devdojo.springboot2.service..*) && @within(org.springframework.stereotype.Service)"
+            + " && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> type = AopUtils.getTargetClass(joinPoint.getTarget());
+        return time(timedMethod(SERVICE_TIMER, type, joinPoint, LayerTimingAspect::serviceType), joinPoint);
+    }
+
+    /**
+     * Spring Data repositories are JDK proxies over SimpleJpaRepository, the tag names the repository interface instead.
+     */
+    @Around("execution(* academy.devdojo.springboot2.repository..*+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> proxyType = joinPoint.getThis().getClass();
+        return time(timedMethod(REPOSITORY_TIMER, proxyType, joinPoint, LayerTimingAspect::repositoryType), joinPoint);
+    }
+
+    /**
+     * Inherited repository methods such as findById are the same Method on every repository, so the timers are
+     * looked up by the class the call went through first.
+     */
+    private TimedMethod timedMethod(String name, Class<?> type, ProceedingJoinPoint joinPoint,
+                                    Function<ProceedingJoinPoint, Class<?>> tagType) {
+        Map<Method, TimedMethod> methods = timedMethods.computeIfAbsent(type, key -> new ConcurrentHashMap<>());
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        TimedMethod timedMethod = methods.get(method);
+        if (timedMethod == null) {
+            timedMethod = methods.computeIfAbsent(method,
+                    key -> new TimedMethod(name, tagType.apply(joinPoint).getSimpleName(), key.getName()));
+        }
+        return timedMethod;
+    }
+
+    private Object time(TimedMethod timedMethod, ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            sample.stop(timedMethod.timer(e));
+            throw e;
+        }
+        if (result instanceof Mono) {
+            return Mono.defer(() -> {
+                Timer.Sample subscription = Timer.start(meterRegistry);
+                return ((Mono<?>) result)
+                        .doOnSuccess(value -> subscription.stop(timedMethod.timer(null)))
+                        .doOnError(e -> subscription.stop(timedMethod.timer(e)));
+            });
+        }
+        if (result instanceof Flux) {
+            return Flux.defer(() -> {
+                Timer.Sample subscription = Timer.start(meterRegistry);
+                return ((Flux<?>) result)
+                        .doOnComplete(() -> subscription.stop(timedMethod.timer(null)))
+                        .doOnError(e -> subscription.stop(timedMethod.timer(e)));
+            });
+        }
+        sample.stop(timedMethod.timer(null));
+        return result;
+    }
+
+    private static Class<?> serviceType(ProceedingJoinPoint joinPoint) {
+        return AopUtils.getTargetClass(joinPoint.getTarget());
+    }
+
+    private static Class<?> repositoryType(ProceedingJoinPoint joinPoint) {
+        for (Class<?> type : ClassUtils.getAllInterfacesForClass(joinPoint.getThis().getClass())) {
+            if (type.getName().startsWith(REPOSITORY_PACKAGE)) {
+                return type;
+            }
+        }
+        return AopUtils.getTargetClass(joinPoint.getTarget());
+    }
+
+    /**
+     * The timers of one method, registered once instead of on every call.
+     */
+    private class TimedMethod {
+        private final String name;
+        private final String className;
+        private final String methodName;
+        private final Timer succeeded;
+        private final Map<Class<? extends Throwable>, Timer> failed = new ConcurrentHashMap<>();
+
+        TimedMethod(String name, String className, String methodName) {
+            this.name = name;
+            this.className = className;
+            this.methodName = methodName;
+            this.succeeded = register(NO_EXCEPTION);
+        }
+
+        Timer timer(Throwable exception) {
+            if (exception == null) {
+                return succeeded;
+            }
+            return failed.computeIfAbsent(exception.getClass(), type -> register(type.getSimpleName()));
+        }
+
+        private Timer register(String exception) {
+            return Timer.builder(name)
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("exception", exception)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package academy.devdojo.springboot2.metrics;
+
+/**
+ * JDBC statements executed by the current request and the time the database took for them.
+ * Started and cleared by {@link SqlStatisticsFilter}, filled by {@link SqlStatisticsListener} on the request thread,
+ * work handed to other threads is not counted.
+ */
+public final class SqlStatistics {
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+
+    static SqlStatistics start() {
+        SqlStatistics sqlStatistics = new SqlStatistics();
+        CURRENT.set(sqlStatistics);
+        return sqlStatistics;
+    }
+
+    /**
+     * @return the statistics of the request running on this thread, null outside a request
+     */
+    static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    void record(long statementNanos) {
+        statements++;
+        nanos += statementNanos;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+}
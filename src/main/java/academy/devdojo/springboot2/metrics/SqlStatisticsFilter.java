@@ -0,0 +1,152 @@
+package academy.devdojo.springboot2.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SQL statements and database time of each request, replacing the blanket org.hibernate.SQL debug log.
+ * Both are recorded per endpoint as devdojo.sql.statements and devdojo.sql.time, requests above
+ * devdojo.sql.statement-budget are logged as N+1 suspects and counted in devdojo.sql.budget.exceeded.
+ * With devdojo.sql.response-header the numbers are also sent back as X-Sql-Statements and X-Sql-Time-Ms,
+ * statements run after the body starts (streamed responses) are missing from the headers only.
+ */
+@Log4j2
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+    public static final String STATEMENTS_SUMMARY = "devdojo.sql.statements";
+    public static final String TIME_TIMER = "devdojo.sql.time";
+    public static final String BUDGET_EXCEEDED_COUNTER = "devdojo.sql.budget.exceeded";
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+    private final boolean responseHeader;
+
+    public SqlStatisticsFilter(MeterRegistry meterRegistry,
+                               @Value("${devdojo.sql.statement-budget:10}") int statementBudget,
+                               @Value("${devdojo.sql.response-header:false}") boolean responseHeader) {
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+        this.responseHeader = responseHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics sqlStatistics = SqlStatistics.start();
+        HeaderWritingResponse headerWritingResponse = responseHeader ? new HeaderWritingResponse(response, sqlStatistics) : null;
+        try {
+            filterChain.doFilter(request, headerWritingResponse != null ? headerWritingResponse : response);
+            if (headerWritingResponse != null) {
+                // responses without a body never open it
+                headerWritingResponse.writeHeaders();
+            }
+        } finally {
+            SqlStatistics.clear();
+            record(request, sqlStatistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatistics sqlStatistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("method", request.getMethod(), "uri", pattern == null ? UNKNOWN_URI : pattern.toString());
+
+        DistributionSummary.builder(STATEMENTS_SUMMARY)
+                .tags(tags)
+                .register(meterRegistry)
+                .record(sqlStatistics.getStatements());
+        Timer.builder(TIME_TIMER)
+                .tags(tags)
+                .register(meterRegistry)
+                .record(sqlStatistics.getNanos(), TimeUnit.NANOSECONDS);
+
+        if (sqlStatistics.getStatements() > statementBudget) {
+            meterRegistry.counter(BUDGET_EXCEEDED_COUNTER, tags).increment();
+            log.warn("{} {} ran {} SQL statements in {} ms, over the budget of {}, possible N+1",
+                    request.getMethod(), request.getRequestURI(), sqlStatistics.getStatements(),
+                    TimeUnit.NANOSECONDS.toMillis(sqlStatistics.getNanos()), statementBudget);
+        }
+    }
+
+    /**
+     * Headers must be set before the first byte of the body, so they are written as soon as the body is opened.
+     */
+    private static class HeaderWritingResponse extends HttpServletResponseWrapper {
+        private final SqlStatistics sqlStatistics;
+        private boolean headersWritten;
+
+        HeaderWritingResponse(HttpServletResponse response, SqlStatistics sqlStatistics) {
+            super(response);
+            this.sqlStatistics = sqlStatistics;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+
+        private void writeHeaders() {
+            if (headersWritten || isCommitted()) {
+                return;
+            }
+            headersWritten = true;
+            setHeader(STATEMENTS_HEADER, String.valueOf(sqlStatistics.getStatements()));
+            setHeader(TIME_HEADER, String.valueOf(TimeUnit.NANOSECONDS.toMillis(sqlStatistics.getNanos())));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package academy.devdojo.springboot2.metrics;
+
+import lombok.extern.log4j.Log4j2;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds every JDBC execution to the {@link SqlStatistics} of the current request and logs the ones slower than
+ * devdojo.sql.slow-query-threshold with their bind parameters. A batch counts as one execution, it is one round trip.
+ */
+@Log4j2
+public class SqlStatisticsListener implements QueryExecutionListener {
+    private static final String START_NANOS = "startNanos";
+
+    private final long slowQueryThresholdNanos;
+    private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+
+    public SqlStatisticsListener(Duration slowQueryThreshold) {
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo executionInfo, List<QueryInfo> queries) {
+        executionInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo executionInfo, List<QueryInfo> queries) {
+        long nanos = System.nanoTime() - executionInfo.getCustomValue(START_NANOS, Long.class);
+
+        SqlStatistics sqlStatistics = SqlStatistics.current();
+        if (sqlStatistics != null) {
+            sqlStatistics.record(nanos);
+        }
+
+        if (nanos >= slowQueryThresholdNanos) {
+            log.warn("Slow query took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(nanos),
+                    logEntryCreator.getLogEntry(executionInfo, queries, false, true, false));
+        }
+    }
+}
@@ -1,13 +1,84 @@
 package academy.devdojo.springboot2.repository;
 
 import academy.devdojo.springboot2.domain.Anime;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface AnimeRepository extends JpaRepository<Anime, Long> {
 
     List<Anime> findByName(String name);
 
+    /**
+     * Keyset page: seeks on the primary key and, returning a List, never issues a count query.
+     */
+    List<Anime> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+    /**
+     * Must be consumed inside a transaction and closed afterwards, rows are fetched from the driver in chunks.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select a from Anime a")
+    Stream<Anime> streamAll();
+
+    /**
+     * Fingerprint of the table: an insert or a delete changes the count and the id sum, an update raises the
+     * version sum. Ids are not assumed to grow, pooled sequences hand them out of order across instances, so
+     * deletes and inserts whose ids add up to the same sum between two reads go unnoticed until the next change.
+     * Good enough for the weak ETag of /animes/all, not for anything that must see every change.
+     */
+    @Query("select count(a) as total, coalesce(sum(a.id), 0) as idSum, coalesce(sum(a.version), 0) as versionSum from Anime a")
+    TableVersion findTableVersion();
+
+    /**
+     * Single UPDATE without loading the anime first, returns the number of updated rows.
+     */
+    @Modifying
+    @Query("update Anime a set a.name = :name, a.version = a.version + 1 where a.id = :id")
+    int updateName(@Param("id") long id, @Param("name") String name);
+
+    /**
+     * Same as {@link #updateName(long, String)} but only when the stored version still is the expected one.
+     */
+    @Modifying
+    @Query("update Anime a set a.name = :name, a.version = a.version + 1 where a.id = :id and a.version = :version")
+    int updateName(@Param("id") long id, @Param("name") String name, @Param("version") long version);
+
+    /**
+     * Single DELETE without loading the anime into the persistence context, returns the number of deleted rows.
+     */
+    @Modifying
+    @Query("delete from Anime a where a.id = :id")
+    int removeById(@Param("id") long id);
+
+    /**
+     * The subset of {@code ids} that exists, read from the primary key index alone.
+     * Callers keep {@code ids} small enough for one IN list, see {@code AnimeService.deleteAll}.
+     */
+    @Query("select a.id from Anime a where a.id in :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Callers keep {@code ids} small enough for one IN list, see {@code AnimeService.deleteAll}.
+     */
+    @Modifying
+    @Query("delete from Anime a where a.id in :ids")
+    int removeByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface TableVersion {
+        long getTotal();
+
+        long getIdSum();
+
+        long getVersionSum();
+    }
 
 }
@@ -0,0 +1,22 @@
+package academy.devdojo.springboot2.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Size;
+
+/**
+ * Partial update, a null field keeps the stored value.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimePatchRequestBody {
+    @Size(min = 1, message = "The anime name cannot be empty")
+    @Schema(description = "This is the Anime's name, leave it out to keep the current one", example = "Tensei shitara no Data ken")
+    private String name;
+}
@@ -1,11 +1,26 @@
 package academy.devdojo.springboot2.requests;
 
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Validated here rather than on the entity, the replace runs as a single UPDATE that skips Hibernate's validation.
+ */
 @Data
 @Builder
+@AllArgsConstructor
+@NoArgsConstructor
 public class AnimePutRequestBody {
+    @NotNull(message = "The anime id cannot be null")
+    @Schema(description = "The id of the anime to replace", example = "1", required = true)
     private Long id;
+    @NotEmpty(message = "The anime name cannot be empty")
+    @Schema(description = "This is the Anime's name", example = "Tensei shitara no Data ken", required = true)
     private String name;
 }
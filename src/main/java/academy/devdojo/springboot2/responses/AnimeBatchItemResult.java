@@ -0,0 +1,21 @@
+package academy.devdojo.springboot2.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeBatchItemResult {
+    public enum Status {
+        CREATED, INVALID
+    }
+
+    private int index;
+    private Status status;
+    private Long id;
+    private String message;
+}
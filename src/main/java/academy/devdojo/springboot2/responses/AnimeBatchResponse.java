@@ -0,0 +1,21 @@
+package academy.devdojo.springboot2.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of a bulk create, {@code items} follows the order of the request body.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeBatchResponse {
+    private int created;
+    private int invalid;
+    private List<AnimeBatchItemResult> items;
+}
@@ -0,0 +1,18 @@
+package academy.devdojo.springboot2.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a bulk delete, ids that did not exist are counted in {@code requested} but not in {@code deleted}.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeBulkDeleteResponse {
+    private int requested;
+    private int deleted;
+}
@@ -0,0 +1,22 @@
+package academy.devdojo.springboot2.responses;
+
+import academy.devdojo.springboot2.domain.Anime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Keyset page of animes. {@code nextCursor} is opaque to clients and is null on the last page.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeCursorPage {
+    private List<Anime> content;
+    private int limit;
+    private String nextCursor;
+}
@@ -0,0 +1,81 @@
+package academy.devdojo.springboot2.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Short lived cache of successful username/password authentications.
+ * Passwords are never stored, the key holds an HMAC-SHA256 of username and password
+ * computed with a random per-process secret.
+ */
+@Component
+public class AuthenticationCache {
+    private static final String CACHE_NAME = "authentication";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, Authentication> cache;
+    private final ThreadLocal<Mac> macs;
+
+    public AuthenticationCache(@Value("${devdojo.security.auth-cache.ttl-seconds:60}") long ttlSeconds,
+                               @Value("${devdojo.security.auth-cache.max-size:10000}") long maxSize,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        // same tag keys as the caches bound by Spring Boot, Prometheus rejects meters whose tag keys differ
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME,
+                Tags.of("cacheManager", "authenticationCache", "name", CACHE_NAME));
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SecretKeySpec key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    public Authentication get(String username, String password) {
+        return cache.getIfPresent(key(username, password));
+    }
+
+    public void put(String username, String password, Authentication authentication) {
+        cache.put(key(username, password), authentication);
+    }
+
+    /**
+     * User changes are rare, dropping every entry keeps renamed users and changed passwords from lingering until the TTL.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private String key(String username, String password) {
+        Mac mac = macs.get();
+        mac.update(username.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        byte[] digest = mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        return username + ':' + Base64.getEncoder().encodeToString(digest);
+    }
+}
@@ -0,0 +1,35 @@
+package academy.devdojo.springboot2.security;
+
+import academy.devdojo.springboot2.exception.BulkheadFullException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Spring Security wraps a rejected user lookup like any other failed authentication, this answers it with
+ * 503 and Retry-After instead of a 401 that would make clients drop valid credentials.
+ */
+@RequiredArgsConstructor
+public class BulkheadAuthenticationEntryPoint implements AuthenticationEntryPoint {
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AuthenticationEntryPoint delegate;
+
+    @Override
+    public void commence(HttpServletRequest request, HttpServletResponse response,
+                         AuthenticationException authException) throws IOException, ServletException {
+        if (authException != null && authException.getCause() instanceof BulkheadFullException) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), authException.getCause().getMessage());
+            return;
+        }
+        delegate.commence(request, response, authException);
+    }
+}
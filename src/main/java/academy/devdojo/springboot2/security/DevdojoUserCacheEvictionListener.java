@@ -0,0 +1,33 @@
+package academy.devdojo.springboot2.security;
+
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.domain.DevdojoUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA listener on {@link DevdojoUser}, instantiated by Hibernate through the Spring bean container.
+ * The caches are optional so slices without security (e.g. @DataJpaTest) still work.
+ */
+@RequiredArgsConstructor
+public class DevdojoUserCacheEvictionListener {
+    private final ObjectProvider<AuthenticationCache> authenticationCache;
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    @PostUpdate
+    @PostRemove
+    public void evict(DevdojoUser devdojoUser) {
+        authenticationCache.ifAvailable(AuthenticationCache::invalidateAll);
+        cacheManager.ifAvailable(manager -> {
+            Cache users = manager.getCache(CacheConfig.USERS_CACHE);
+            if (users != null) {
+                users.clear();
+            }
+        });
+    }
+}
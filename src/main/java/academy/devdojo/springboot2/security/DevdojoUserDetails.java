@@ -0,0 +1,47 @@
+package academy.devdojo.springboot2.security;
+
+import academy.devdojo.springboot2.domain.DevdojoUser;
+import lombok.ToString;
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+/**
+ * Immutable snapshot of a {@link DevdojoUser}, safe to share between requests from a cache.
+ * The authorities string is parsed once, and unlike Spring's User it is not a CredentialsContainer,
+ * so erasing credentials after authentication does not wipe the cached password.
+ */
+@Value
+public class DevdojoUserDetails implements UserDetails {
+    String username;
+    @ToString.Exclude
+    String password;
+    List<GrantedAuthority> authorities;
+
+    public static DevdojoUserDetails of(DevdojoUser devdojoUser) {
+        return new DevdojoUserDetails(devdojoUser.getUsername(), devdojoUser.getPassword(),
+                List.copyOf(devdojoUser.getAuthorities()));
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
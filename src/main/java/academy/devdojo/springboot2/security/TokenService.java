@@ -0,0 +1,109 @@
+package academy.devdojo.springboot2.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and verifies short lived HMAC-SHA256 signed tokens, {@code base64url(payload).base64url(signature)}
+ * where the payload is {@code expiresAtEpochSecond:authorities:username}.
+ * Verifying a token needs neither the database nor the password encoder.
+ */
+@Component
+public class TokenService {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    private final Clock clock;
+
+    /**
+     * An empty secret generates a random one, tokens are then only valid on this instance until it restarts.
+     */
+    @Autowired
+    public TokenService(@Value("${devdojo.security.token.secret:}") String secret,
+                        @Value("${devdojo.security.token.ttl-seconds:900}") long ttlSeconds) {
+        this(secret, ttlSeconds, Clock.systemUTC());
+    }
+
+    TokenService(String secret, long ttlSeconds, Clock clock) {
+        this.key = new SecretKeySpec(secret.isEmpty() ? randomSecret() : Base64.getDecoder().decode(secret), HMAC_ALGORITHM);
+        this.ttlSeconds = ttlSeconds;
+        this.clock = clock;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public String issue(Authentication authentication) {
+        long expiresAt = clock.instant().getEpochSecond() + ttlSeconds;
+        String authorities = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+        byte[] payload = (expiresAt + ":" + authorities + ":" + authentication.getName()).getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * @return the authentication carried by the token, or null when it is malformed, tampered with or expired
+     */
+    public Authentication verify(String token) {
+        int separator = token.indexOf('.');
+        if (separator < 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+
+        String[] claims = new String(payload, StandardCharsets.UTF_8).split(":", 3);
+        if (claims.length != 3 || Long.parseLong(claims[0]) < clock.instant().getEpochSecond()) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = AuthorityUtils.commaSeparatedStringToAuthorityList(claims[1]);
+        DevdojoUserDetails principal = new DevdojoUserDetails(claims[2], null, authorities);
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static byte[] randomSecret() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+}
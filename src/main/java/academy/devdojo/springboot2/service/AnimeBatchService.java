@@ -0,0 +1,116 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.bulkhead.Bulkhead;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.event.AnimeChangedEvent;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.mapper.AnimeMapper;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.responses.AnimeBatchItemResult;
+import academy.devdojo.springboot2.responses.AnimeBatchResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk creation of animes. Valid items are persisted in chunks, every chunk is flushed as JDBC batches
+ * (hibernate.jdbc.batch_size) and then cleared so the persistence context stays small.
+ */
+@Service
+@RequiredArgsConstructor
+public class AnimeBatchService {
+    private final AnimeRepository animeRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${devdojo.anime.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${devdojo.anime.batch.max-items:10000}")
+    private int maxItems;
+
+    @Bulkhead(Bulkhead.WRITES)
+    @Transactional
+    public AnimeBatchResponse saveAll(List<AnimePostRequestBody> animePostRequestBodies) {
+        if (animePostRequestBodies.size() > maxItems) {
+            throw new BadRequestException("A batch cannot have more than " + maxItems + " animes");
+        }
+
+        List<AnimeBatchItemResult> items = new ArrayList<>(animePostRequestBodies.size());
+        List<Anime> chunk = new ArrayList<>(chunkSize);
+        List<AnimeBatchItemResult> chunkItems = new ArrayList<>(chunkSize);
+        int invalid = 0;
+
+        for (int index = 0; index < animePostRequestBodies.size(); index++) {
+            AnimePostRequestBody animePostRequestBody = animePostRequestBodies.get(index);
+            String violations = validate(animePostRequestBody);
+            if (violations != null) {
+                items.add(AnimeBatchItemResult.builder()
+                        .index(index)
+                        .status(AnimeBatchItemResult.Status.INVALID)
+                        .message(violations)
+                        .build());
+                invalid++;
+                continue;
+            }
+
+            AnimeBatchItemResult item = AnimeBatchItemResult.builder()
+                    .index(index)
+                    .status(AnimeBatchItemResult.Status.CREATED)
+                    .build();
+            items.add(item);
+            chunk.add(AnimeMapper.INSTANCE.toAnime(animePostRequestBody));
+            chunkItems.add(item);
+
+            if (chunk.size() == chunkSize) {
+                insertChunk(chunk, chunkItems);
+            }
+        }
+        insertChunk(chunk, chunkItems);
+
+        return AnimeBatchResponse.builder()
+                .created(items.size() - invalid)
+                .invalid(invalid)
+                .items(items)
+                .build();
+    }
+
+    private String validate(AnimePostRequestBody animePostRequestBody) {
+        if (animePostRequestBody == null) {
+            return "The anime cannot be null";
+        }
+        Set<ConstraintViolation<AnimePostRequestBody>> violations = validator.validate(animePostRequestBody);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining(", "));
+    }
+
+    private void insertChunk(List<Anime> chunk, List<AnimeBatchItemResult> chunkItems) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Anime> savedAnimes = animeRepository.saveAll(chunk);
+        entityManager.flush();
+        entityManager.clear();
+
+        for (int i = 0; i < savedAnimes.size(); i++) {
+            chunkItems.get(i).setId(savedAnimes.get(i).getId());
+            eventPublisher.publishEvent(AnimeChangedEvent.saved(savedAnimes.get(i)));
+        }
+        chunk.clear();
+        chunkItems.clear();
+    }
+}
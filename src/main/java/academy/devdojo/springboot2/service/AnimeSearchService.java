@@ -0,0 +1,248 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.event.AnimeChangedEvent;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import lombok.extern.log4j.Log4j2;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked, typo tolerant and prefix search over anime names backed by an in-memory Lucene index.
+ * The index is rebuilt from the database on startup and then follows {@link AnimeChangedEvent}s
+ * after their transaction commits. All writes happen on a single indexer thread, searches only
+ * see committed changes once the indexer refreshed the searcher.
+ */
+@Service
+@Log4j2
+public class AnimeSearchService {
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String NAME_PREFIX = "name_prefix";
+    private static final String VERSION = "version";
+    private static final int MAX_PREFIX_LENGTH = 20;
+
+    private final AnimeService animeService;
+    private final int maxWindow;
+    private final Analyzer nameAnalyzer;
+    private final IndexWriter indexWriter;
+    private final SearcherManager searcherManager;
+    private final ExecutorService indexer;
+
+    public AnimeSearchService(AnimeService animeService,
+                              @Value("${devdojo.anime.search.max-window:10000}") int maxWindow) throws IOException {
+        this.animeService = animeService;
+        this.maxWindow = maxWindow;
+        this.nameAnalyzer = nameAnalyzer(false);
+        Analyzer analyzer = new PerFieldAnalyzerWrapper(nameAnalyzer, Map.of(NAME_PREFIX, nameAnalyzer(true)));
+        this.indexWriter = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(indexWriter, null);
+        this.indexer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "anime-search-indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Every word of the query has to match the name exactly, as a prefix or within one or two typos,
+     * exact matches rank first and typos last.
+     */
+    public Page<Anime> search(String text, Pageable pageable) {
+        List<String> words = analyze(text);
+        if (words.isEmpty()) {
+            throw new BadRequestException("The search text cannot be empty");
+        }
+        if (pageable.getOffset() + pageable.getPageSize() > maxWindow) {
+            throw new BadRequestException("Search results are limited to the first " + maxWindow + " animes");
+        }
+        int offset = (int) pageable.getOffset();
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query(words), offset + pageable.getPageSize());
+                List<Anime> animes = new ArrayList<>(pageable.getPageSize());
+                for (int i = offset; i < topDocs.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                    Document document = searcher.doc(scoreDoc.doc);
+                    IndexableField version = document.getField(VERSION);
+                    animes.add(Anime.builder()
+                            .id(Long.parseLong(document.get(ID)))
+                            .name(document.get(NAME))
+                            .version(version == null ? null : version.numericValue().longValue())
+                            .build());
+                }
+                return new PageImpl<>(animes, pageable, topDocs.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        indexer.execute(() -> {
+            try {
+                indexWriter.deleteAll();
+                int[] count = {0};
+                animeService.streamAll(anime -> {
+                    write(anime.getId(), anime.getName(), anime.getVersion());
+                    count[0]++;
+                });
+                searcherManager.maybeRefresh();
+                log.info("Anime search index rebuilt with {} animes", count[0]);
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not rebuild the anime search index", e);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        indexer.execute(() -> {
+            try {
+                if (event.isDeleted()) {
+                    indexWriter.deleteDocuments(new Term(ID, Long.toString(event.getId())));
+                } else {
+                    write(event.getId(), event.getName(), event.getVersion());
+                }
+                searcherManager.maybeRefresh();
+            } catch (IOException | RuntimeException e) {
+                log.error("Could not index anime {}", event.getId(), e);
+            }
+        });
+    }
+
+    /**
+     * Blocks until every change submitted so far is searchable.
+     */
+    void awaitIndexing() throws ExecutionException, InterruptedException {
+        indexer.submit(() -> {
+        }).get();
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        indexer.shutdown();
+        indexer.awaitTermination(10, TimeUnit.SECONDS);
+        searcherManager.close();
+        indexWriter.close();
+    }
+
+    private void write(long id, String name, Long version) {
+        String idValue = Long.toString(id);
+        Document document = new Document();
+        document.add(new StringField(ID, idValue, Field.Store.YES));
+        document.add(new TextField(NAME, name == null ? "" : name, Field.Store.YES));
+        document.add(new TextField(NAME_PREFIX, name == null ? "" : name, Field.Store.NO));
+        if (version != null) {
+            document.add(new StoredField(VERSION, version));
+        }
+        try {
+            indexWriter.updateDocument(new Term(ID, idValue), document);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Query query(List<String> words) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String word : words) {
+            BooleanQuery.Builder wordQuery = new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(NAME, word)), 3f), BooleanClause.Occur.SHOULD);
+            if (word.length() <= MAX_PREFIX_LENGTH) {
+                wordQuery.add(new BoostQuery(new TermQuery(new Term(NAME_PREFIX, word)), 2f), BooleanClause.Occur.SHOULD);
+            }
+            if (word.length() >= 3) {
+                wordQuery.add(new FuzzyQuery(new Term(NAME, word), word.length() > 5 ? 2 : 1), BooleanClause.Occur.SHOULD);
+            }
+            query.add(wordQuery.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        try (TokenStream tokenStream = nameAnalyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                words.add(term.toString());
+            }
+            tokenStream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return words;
+    }
+
+    /**
+     * Lower cased, accent folded words, the prefix variant also indexes every leading edge n-gram
+     * so autocomplete is a single term lookup instead of a prefix scan.
+     */
+    private static Analyzer nameAnalyzer(boolean prefixes) {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer tokenizer = new StandardTokenizer();
+                TokenStream tokenStream = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+                if (prefixes) {
+                    tokenStream = new EdgeNGramTokenFilter(tokenStream, 1, MAX_PREFIX_LENGTH, true);
+                }
+                return new TokenStreamComponents(tokenizer, tokenStream);
+            }
+        };
+    }
+}
@@ -1,56 +1,248 @@
 package academy.devdojo.springboot2.service;
 
+import academy.devdojo.springboot2.bulkhead.Bulkhead;
+import academy.devdojo.springboot2.coalescing.Coalesced;
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.datasource.ReadFromPrimary;
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.event.AnimeChangedEvent;
 import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
 import academy.devdojo.springboot2.mapper.AnimeMapper;
 import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.requests.AnimePatchRequestBody;
 import academy.devdojo.springboot2.requests.AnimePostRequestBody;
 import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.responses.AnimeBulkDeleteResponse;
+import academy.devdojo.springboot2.responses.AnimeCursorPage;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class AnimeService {
+    /**
+     * Keyset page size when the client sends a cursor without a limit.
+     */
+    public static final int DEFAULT_CURSOR_LIMIT = 20;
 
     private final AnimeRepository animeRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Value("${devdojo.anime.cursor.max-limit:100}")
+    private int maxCursorLimit;
+
+    @Value("${devdojo.anime.delete.chunk-size:1000}")
+    private int deleteChunkSize;
+
+    @Coalesced
+    @Bulkhead(Bulkhead.READS)
+    @Transactional(readOnly = true)
     public Page<Anime> listAll(Pageable pageable) {
         return animeRepository.findAll(pageable);
     }
 
+    /**
+     * Keyset pagination: fetches one extra row to know whether there is a next page, so no count query is needed.
+     */
+    @Coalesced
+    @Bulkhead(Bulkhead.READS)
+    @Transactional(readOnly = true)
+    public AnimeCursorPage listAfter(String after, int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be greater than zero");
+        }
+        int pageSize = Math.min(limit, maxCursorLimit);
+        long afterId = after == null ? 0L : decodeCursor(after);
+
+        List<Anime> animes = animeRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, pageSize + 1));
+
+        return toCursorPage(animes, pageSize);
+    }
+
+    /**
+     * @param animes up to {@code pageSize + 1} animes in id order, the extra one only tells there is a next page
+     */
+    static AnimeCursorPage toCursorPage(List<Anime> animes, int pageSize) {
+        String nextCursor = null;
+        if (animes.size() > pageSize) {
+            animes = animes.subList(0, pageSize);
+            nextCursor = encodeCursor(animes.get(pageSize - 1).getId());
+        }
+
+        return AnimeCursorPage.builder()
+                .content(animes)
+                .limit(pageSize)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Bulkhead(Bulkhead.DUMPS)
+    @Transactional(readOnly = true)
     public List<Anime> listAllNoPageable() {
         return animeRepository.findAll();
     }
 
+    /**
+     * Cheap fingerprint of the whole anime table, one aggregate query instead of loading every row.
+     */
+    @Bulkhead(Bulkhead.READS)
+    @Transactional(readOnly = true)
+    public String tableVersion() {
+        AnimeRepository.TableVersion tableVersion = animeRepository.findTableVersion();
+        return tableVersion.getTotal() + "-" + tableVersion.getIdSum() + "-" + tableVersion.getVersionSum();
+    }
+
+    /**
+     * Hands every anime to the consumer one at a time, detaching it first so the persistence context does not grow.
+     */
+    @Bulkhead(Bulkhead.DUMPS)
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Anime> consumer) {
+        try (Stream<Anime> animes = animeRepository.streamAll()) {
+            animes.forEach(anime -> {
+                entityManager.detach(anime);
+                consumer.accept(anime);
+            });
+        }
+    }
+
+    @Coalesced
+    @Bulkhead(Bulkhead.READS)
+    @Transactional(readOnly = true)
     public List<Anime> findByName(String name) {
         return animeRepository.findByName(name);
     }
 
+    @Coalesced
+    @Bulkhead(Bulkhead.READS)
+    @ReadFromPrimary
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.ANIMES_CACHE, key = "#id")
     public Anime findByIdOrThrowBadRequestException(long id) {
         return animeRepository.findById(id)
-                .orElseThrow(() -> new BadRequestException("Anime not found"));
+                .orElseThrow(BadRequestException::animeNotFound);
 
     }
 
+    @Bulkhead(Bulkhead.WRITES)
     @Transactional
+    @CachePut(cacheNames = CacheConfig.ANIMES_CACHE, key = "#result.id")
     public Anime save(AnimePostRequestBody animePostRequestBody) {
-        return animeRepository.save(AnimeMapper.INSTANCE.toAnime(animePostRequestBody));
+        Anime savedAnime = animeRepository.save(AnimeMapper.INSTANCE.toAnime(animePostRequestBody));
+        eventPublisher.publishEvent(AnimeChangedEvent.saved(savedAnime));
+        return savedAnime;
     }
 
+    @Bulkhead(Bulkhead.ADMIN_WRITES)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ANIMES_CACHE, key = "#id")
     public void delete(long id) {
-        animeRepository.delete(findByIdOrThrowBadRequestException(id));
+        if (animeRepository.removeById(id) == 0) {
+            throw BadRequestException.animeNotFound();
+        }
+        eventPublisher.publishEvent(AnimeChangedEvent.deleted(id));
+    }
+
+    /**
+     * Deletes the animes in chunked IN statements within one transaction, ids that do not exist are skipped.
+     * Each chunk first selects the ids that exist, so the search index only hears about rows actually removed.
+     */
+    @Bulkhead(Bulkhead.ADMIN_WRITES)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ANIMES_CACHE, allEntries = true)
+    public AnimeBulkDeleteResponse deleteAll(Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        int deleted = 0;
+        for (int from = 0; from < distinctIds.size(); from += deleteChunkSize) {
+            List<Long> existingIds = animeRepository.findIdsByIdIn(
+                    distinctIds.subList(from, Math.min(from + deleteChunkSize, distinctIds.size())));
+            if (existingIds.isEmpty()) {
+                continue;
+            }
+            deleted += animeRepository.removeByIdIn(existingIds);
+            existingIds.forEach(id -> eventPublisher.publishEvent(AnimeChangedEvent.deleted(id)));
+        }
+
+        return AnimeBulkDeleteResponse.builder()
+                .requested(distinctIds.size())
+                .deleted(deleted)
+                .build();
+    }
+
+    /**
+     * Overwrites the anime with a single UPDATE, the affected row count tells whether it exists.
+     *
+     * @param expectedVersion the version the client last saw, null to overwrite whatever is stored
+     * @return the new version, null when no expected version was given and the new one is unknown
+     * @throws PreconditionFailedException when the anime changed after the client read it
+     */
+    @Bulkhead(Bulkhead.WRITES)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ANIMES_CACHE, key = "#animePutRequestBody.id")
+    public Long replace(AnimePutRequestBody animePutRequestBody, Long expectedVersion) {
+        return updateName(animePutRequestBody.getId(), animePutRequestBody.getName(), expectedVersion);
+    }
+
+    /**
+     * Writes only the fields present in the request, see {@link #replace(AnimePutRequestBody, Long)}.
+     */
+    @Bulkhead(Bulkhead.WRITES)
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ANIMES_CACHE, key = "#id")
+    public Long update(long id, AnimePatchRequestBody animePatchRequestBody, Long expectedVersion) {
+        if (animePatchRequestBody.getName() == null) {
+            throw new BadRequestException("The request does not change any field");
+        }
+        return updateName(id, animePatchRequestBody.getName(), expectedVersion);
+    }
+
+    private Long updateName(long id, String name, Long expectedVersion) {
+        int updatedRows = expectedVersion == null
+                ? animeRepository.updateName(id, name)
+                : animeRepository.updateName(id, name, expectedVersion);
+        if (updatedRows == 0) {
+            // only a conditional update needs the extra read to tell a stale version from a missing anime
+            if (expectedVersion != null && animeRepository.existsById(id)) {
+                throw new PreconditionFailedException("Anime was modified after version " + expectedVersion);
+            }
+            throw BadRequestException.animeNotFound();
+        }
+        Long version = expectedVersion == null ? null : expectedVersion + 1;
+        eventPublisher.publishEvent(new AnimeChangedEvent(id, name, version));
+        return version;
+    }
+
+    static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(id).getBytes(StandardCharsets.US_ASCII));
     }
 
-    public void replace(AnimePutRequestBody animePutRequestBody) {
-        Anime savedAnime = findByIdOrThrowBadRequestException(animePutRequestBody.getId());
-        Anime anime = AnimeMapper.INSTANCE.toAnime(animePutRequestBody);
-        anime.setId(savedAnime.getId());
-        animeRepository.save(anime);
+    static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
     }
 }
@@ -1,12 +1,17 @@
 package academy.devdojo.springboot2.service;
 
-import academy.devdojo.springboot2.domain.DevdojoUser;
+import academy.devdojo.springboot2.bulkhead.Bulkhead;
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.datasource.ReadFromPrimary;
 import academy.devdojo.springboot2.repository.DevdojoUserRepository;
+import academy.devdojo.springboot2.security.DevdojoUserDetails;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -15,8 +20,13 @@ import java.util.Optional;
 public class DevdojoUserDetailsService implements UserDetailsService {
     private final DevdojoUserRepository devdojoUserRepository;
     @Override
+    @Bulkhead(Bulkhead.AUTH)
+    @ReadFromPrimary
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, key = "#username")
     public UserDetails loadUserByUsername(String username) {
         return Optional.ofNullable(devdojoUserRepository.findByUsername(username))
+                .map(DevdojoUserDetails::of)
                 .orElseThrow(() ->new UsernameNotFoundException("Devdojo User not found"));
     }
 }
@@ -7,7 +7,12 @@ import java.time.format.DateTimeFormatter;
 
 @Component
 public class DateUtil {
+    /**
+     * DateTimeFormatter is immutable and thread safe, parsing the pattern once is enough.
+     */
+    private static final DateTimeFormatter DATA_BASE_STYLE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     public String formateLocalDateTimeToDataBaseStyle(LocalDateTime localDateTime){
-        return DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").format(localDateTime);
+        return DATA_BASE_STYLE.format(localDateTime);
     }
 }
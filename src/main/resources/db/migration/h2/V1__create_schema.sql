@@ -0,0 +1,16 @@
+create sequence anime_seq start with 1 increment by 50;
+
+create table anime (
+    id bigint not null,
+    name varchar(255),
+    primary key (id)
+);
+
+create table devdojo_user (
+    id bigint generated by default as identity,
+    authorities varchar(255),
+    name varchar(255),
+    password varchar(255),
+    username varchar(255),
+    primary key (id)
+);
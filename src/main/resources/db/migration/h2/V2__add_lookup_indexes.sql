@@ -0,0 +1,5 @@
+-- AnimeRepository.findByName
+create index idx_anime_name on anime (name);
+
+-- DevdojoUserRepository.findByUsername, runs on every login
+create unique index uk_devdojo_user_username on devdojo_user (username);
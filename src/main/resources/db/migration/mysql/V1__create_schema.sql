@@ -0,0 +1,22 @@
+-- MySQL has no sequences, Hibernate keeps the pooled anime_seq generator in a single row table
+create table if not exists anime_seq (
+    next_val bigint
+) engine = InnoDB;
+
+insert into anime_seq (next_val)
+select 1 from dual where not exists (select * from anime_seq);
+
+create table if not exists anime (
+    id bigint not null,
+    name varchar(255),
+    primary key (id)
+) engine = InnoDB;
+
+create table if not exists devdojo_user (
+    id bigint not null auto_increment,
+    authorities varchar(255),
+    name varchar(255),
+    password varchar(255),
+    username varchar(255),
+    primary key (id)
+) engine = InnoDB;
@@ -0,0 +1,9 @@
+-- AnimeRepository.findByName
+create index idx_anime_name on anime (name);
+
+-- DevdojoUserRepository.findByUsername, runs on every login
+create unique index uk_devdojo_user_username on devdojo_user (username);
+
+-- Schemas created by ddl-auto may already hold ids above the generator value. The pooled optimizer hands out
+-- [next_val - 49, next_val] for any next_val other than 1, so the gap must be the allocationSize of Anime (50)
+update anime_seq set next_val = greatest(next_val, (select coalesce(max(id), 0) + 50 from anime));
@@ -0,0 +1,2 @@
+-- Optimistic locking and ETags, existing rows start at version 0
+alter table anime add column version bigint not null default 0;
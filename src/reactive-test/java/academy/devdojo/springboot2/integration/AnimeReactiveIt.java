@@ -0,0 +1,174 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.domain.DevdojoUser;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.repository.DevdojoUserRepository;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import util.AnimeCreator;
+
+import static org.springframework.web.reactive.function.client.ExchangeFilterFunctions.basicAuthentication;
+
+/**
+ * The /animes API served by the reactive profile. JDBC (Flyway and the writes) and R2DBC (the reads)
+ * open the same named in-memory H2 database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive-it;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-it?options=DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+@ActiveProfiles("reactive")
+class AnimeReactiveIt {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    @Autowired
+    private DevdojoUserRepository devdojoUserRepository;
+
+    @BeforeEach
+    void setUp() {
+        animeRepository.deleteAll();
+        devdojoUserRepository.deleteAll();
+        devdojoUserRepository.save(devdojoUser("Devdojo Academy", "devdojo", "ROLE_USER"));
+        devdojoUserRepository.save(devdojoUser("Leonardo Campos", "leonardo", "ROLE_USER,ROLE_ADMIN"));
+    }
+
+    @Test
+    @DisplayName("findById returns anime with ETag and 304 when If-None-Match matches")
+    void findById_ReturnsAnimeWithETag_WhenSuccessful() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        Anime anime = user().get().uri("/animes/{id}", savedAnime.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody(Anime.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertThat(anime).isEqualTo(savedAnime);
+
+        user().get().uri("/animes/by-id/{id}", savedAnime.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\"")
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    @DisplayName("list returns page of animes and listAll streams newline delimited json")
+    void list_ReturnsPageAndStream_WhenSuccessful() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        animeRepository.save(Anime.builder().name("Berserk").build());
+
+        user().get().uri("/animes?size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].name").isEqualTo(savedAnime.getName())
+                .jsonPath("$.totalElements").isEqualTo(2);
+
+        String lines = user().get().uri("/animes/all")
+                .accept(MediaType.parseMediaType("application/x-ndjson"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertThat(lines).isNotNull();
+        Assertions.assertThat(lines.split("\n")).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("save returns 400 with the invalid fields when name is empty and 201 when valid")
+    void save_ValidatesBody_WhenCalled() {
+        user().post().uri("/animes")
+                .bodyValue(new AnimePostRequestBody(""))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.fields").isEqualTo("name");
+
+        user().post().uri("/animes")
+                .bodyValue(new AnimePostRequestBody("Hajime no Ippo"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").isNotEmpty();
+
+        user().get().uri("/animes/find?name=Hajime no Ippo")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("replace returns 400 with the invalid fields when name is empty")
+    void replace_ValidatesBody_WhenCalled() {
+        user().put().uri("/animes")
+                .bodyValue(AnimePutRequestBody.builder().id(1L).name("").build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.fields").isEqualTo("name");
+    }
+
+    @Test
+    @DisplayName("delete returns 403 for a user and 204 for an admin")
+    void delete_FollowsSecurityRules_WhenCalled() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        user().delete().uri("/animes/admin/{id}", savedAnime.getId())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.FORBIDDEN);
+
+        admin().delete().uri("/animes/admin/{id}", savedAnime.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        admin().get().uri("/animes/{id}", savedAnime.getId())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.get().uri("/animes")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    private static DevdojoUser devdojoUser(String name, String username, String authorities) {
+        return DevdojoUser.builder()
+                .name(name)
+                .password("{bcrypt}$2a$10$Mi3kzk0W0uEJbzQpL7T44uSxSs9OoPo.sULj8f7xQaamJFTdd.j92")
+                .username(username)
+                .authorities(authorities)
+                .build();
+    }
+
+    private WebTestClient user() {
+        return webTestClient.mutate().filter(basicAuthentication("devdojo", "academy")).build();
+    }
+
+    private WebTestClient admin() {
+        return webTestClient.mutate().filter(basicAuthentication("leonardo", "academy")).build();
+    }
+}
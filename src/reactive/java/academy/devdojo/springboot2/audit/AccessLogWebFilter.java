@@ -0,0 +1,54 @@
+package academy.devdojo.springboot2.audit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link AccessLogFilter} for the reactive stack. The event is recorded when the response is committed,
+ * after the exception handlers set the final status.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+// right after the WebFilterChainProxy of Spring Security, which is ordered at -100
+@Order(-99)
+public class AccessLogWebFilter implements WebFilter {
+    private final AccessLog accessLog;
+
+    public AccessLogWebFilter(AccessLog accessLog) {
+        this.accessLog = accessLog;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long start = System.nanoTime();
+        AtomicReference<Principal> principal = new AtomicReference<>();
+        exchange.getResponse().beforeCommit(() -> {
+            record(exchange, principal.get(), System.nanoTime() - start);
+            return Mono.empty();
+        });
+        return exchange.getPrincipal()
+                .doOnNext(principal::set)
+                .then(chain.filter(exchange));
+    }
+
+    private void record(ServerWebExchange exchange, Principal principal, long durationNanos) {
+        ServerHttpRequest request = exchange.getRequest();
+        Object pattern = exchange.getAttribute(RouterFunctions.MATCHING_PATTERN_ATTRIBUTE);
+        HttpStatus status = exchange.getResponse().getStatusCode();
+        accessLog.record(AccessLogEvent.of(request.getMethodValue(), request.getPath().value(),
+                pattern == null ? AccessLogFilter.UNKNOWN_URI : pattern.toString(),
+                status == null ? HttpStatus.OK.value() : status.value(),
+                durationNanos, PrincipalSummary.of(principal)));
+    }
+}
@@ -0,0 +1,46 @@
+package academy.devdojo.springboot2.config;
+
+import academy.devdojo.springboot2.security.CachingAuthenticationProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManagerAdapter;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+import java.util.Collections;
+
+/**
+ * The rules of {@link SecurityConfig} for the reactive stack. Passwords are checked by the same
+ * {@link CachingAuthenticationProvider}, on the bounded elastic scheduler because BCrypt and the user lookup block.
+ * Bearer tokens are only issued by the servlet stack.
+ */
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(CachingAuthenticationProvider cachingAuthenticationProvider) {
+        return new ReactiveAuthenticationManagerAdapter(
+                new ProviderManager(Collections.singletonList(cachingAuthenticationProvider)));
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http.csrf().disable()
+                .authorizeExchange()
+                .pathMatchers("/animes/admin/**").hasRole("ADMIN")
+                .pathMatchers("/animes/**").hasRole("USER")
+                .pathMatchers("/actuator/**").permitAll()
+                .anyExchange()
+                .authenticated()
+                .and()
+                .httpBasic()
+                .and()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .build();
+    }
+}
@@ -0,0 +1,233 @@
+package academy.devdojo.springboot2.controller;
+
+import academy.devdojo.springboot2.audit.AccessLogWebFilter;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.requests.AnimePatchRequestBody;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.responses.AnimeBatchResponse;
+import academy.devdojo.springboot2.service.AnimeReactiveService;
+import academy.devdojo.springboot2.service.AnimeSearchService;
+import academy.devdojo.springboot2.service.AnimeService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The {@link AnimeController} endpoints for the reactive stack, routed by {@link AnimeRouter}.
+ * Status codes, headers and bodies are the same as the servlet ones.
+ */
+@Component
+@Log4j2
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class AnimeHandler {
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final Pageable FALLBACK_PAGEABLE = PageRequest.of(0, 5);
+    private static final ParameterizedTypeReference<List<AnimePostRequestBody>> POST_REQUEST_BODIES =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final AnimeReactiveService animeReactiveService;
+    private final AnimeSearchService animeSearchService;
+    private final Validator validator;
+    private final ObjectWriter animeWriter;
+    private final int maxPageSize;
+
+    public AnimeHandler(AnimeReactiveService animeReactiveService,
+                        AnimeSearchService animeSearchService,
+                        Validator validator,
+                        ObjectMapper objectMapper,
+                        @Value("${devdojo.anime.page.max-size:100}") int maxPageSize) {
+        this.animeReactiveService = animeReactiveService;
+        this.animeSearchService = animeSearchService;
+        this.validator = validator;
+        this.animeWriter = objectMapper.writerFor(Anime.class);
+        this.maxPageSize = maxPageSize;
+    }
+
+    public Mono<ServerResponse> list(ServerRequest request) {
+        return animeReactiveService.listAll(pageable(request))
+                .flatMap(animePage -> ServerResponse.ok().bodyValue(animePage));
+    }
+
+    public Mono<ServerResponse> listByCursor(ServerRequest request) {
+        int limit = request.queryParam("limit").map(AnimeHandler::parseInt).orElse(AnimeService.DEFAULT_CURSOR_LIMIT);
+        return animeReactiveService.listAfter(request.queryParam("after").orElse(null), limit)
+                .flatMap(animeCursorPage -> ServerResponse.ok().bodyValue(animeCursorPage));
+    }
+
+    /**
+     * The JSON array is written from the rows as they arrive, a matching If-None-Match skips the read altogether.
+     */
+    public Mono<ServerResponse> listAll(ServerRequest request) {
+        return animeReactiveService.tableVersion()
+                .map(tableVersion -> "W/\"" + tableVersion + "\"")
+                .flatMap(eTag -> request.checkNotModified(eTag)
+                        .switchIfEmpty(Mono.defer(() -> ServerResponse.ok()
+                                .eTag(eTag)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .body(animeReactiveService.listAll(), Anime.class))));
+    }
+
+    public Mono<ServerResponse> streamAll(ServerRequest request) {
+        Flux<String> lines = animeReactiveService.listAll().map(this::toJsonLine);
+        return ServerResponse.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(lines, String.class);
+    }
+
+    public Mono<ServerResponse> findById(ServerRequest request) {
+        return animeReactiveService.findByIdOrThrowBadRequestException(id(request))
+                .flatMap(anime -> withETag(request, anime));
+    }
+
+    /**
+     * The principal is written to the access log by {@link AccessLogWebFilter}.
+     */
+    public Mono<ServerResponse> findByIdAuthenticationPrincipal(ServerRequest request) {
+        return findById(request);
+    }
+
+    public Mono<ServerResponse> findByName(ServerRequest request) {
+        String name = request.queryParam("name")
+                .orElseThrow(() -> new BadRequestException("Required parameter name is missing"));
+        return ServerResponse.ok().body(animeReactiveService.findByName(name), Anime.class);
+    }
+
+    public Mono<ServerResponse> search(ServerRequest request) {
+        String text = request.queryParam("q")
+                .orElseThrow(() -> new BadRequestException("Required parameter q is missing"));
+        return ServerResponse.ok().bodyValue(animeSearchService.search(text, pageable(request)));
+    }
+
+    public Mono<ServerResponse> save(ServerRequest request) {
+        return request.bodyToMono(AnimePostRequestBody.class)
+                .map(this::validate)
+                .flatMap(animeReactiveService::save)
+                .flatMap(anime -> ServerResponse.status(HttpStatus.CREATED).bodyValue(anime));
+    }
+
+    public Mono<ServerResponse> saveAll(ServerRequest request) {
+        return request.bodyToMono(POST_REQUEST_BODIES)
+                .flatMap(animeReactiveService::saveAll)
+                .flatMap(animeBatchResponse -> ServerResponse.status(status(animeBatchResponse)).bodyValue(animeBatchResponse));
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        return animeReactiveService.delete(id(request))
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> deleteAll(ServerRequest request) {
+        List<Long> ids = request.queryParams().getOrDefault("ids", List.of()).stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(AnimeHandler::parseLong)
+                .collect(Collectors.toList());
+        return animeReactiveService.deleteAll(ids)
+                .flatMap(animeBulkDeleteResponse -> ServerResponse.ok().bodyValue(animeBulkDeleteResponse));
+    }
+
+    public Mono<ServerResponse> replace(ServerRequest request) {
+        Long expectedVersion = AnimeController.expectedVersion(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        return request.bodyToMono(AnimePutRequestBody.class)
+                .map(this::validate)
+                .flatMap(animePutRequestBody -> animeReactiveService.replace(animePutRequestBody, expectedVersion))
+                .flatMap(AnimeHandler::noContent)
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.noContent().build()));
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        long id = id(request);
+        Long expectedVersion = AnimeController.expectedVersion(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+        return request.bodyToMono(AnimePatchRequestBody.class)
+                .map(this::validate)
+                .flatMap(animePatchRequestBody -> animeReactiveService.update(id, animePatchRequestBody, expectedVersion))
+                .flatMap(AnimeHandler::noContent)
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.noContent().build()));
+    }
+
+    private static Mono<ServerResponse> withETag(ServerRequest request, Anime anime) {
+        String eTag = AnimeController.eTag(anime.getVersion());
+        return request.checkNotModified(eTag)
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(eTag).bodyValue(anime)));
+    }
+
+    private static Mono<ServerResponse> noContent(Long version) {
+        return ServerResponse.noContent().eTag(AnimeController.eTag(version)).build();
+    }
+
+    private static HttpStatus status(AnimeBatchResponse animeBatchResponse) {
+        return animeBatchResponse.getInvalid() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+    }
+
+    private <T> T validate(T body) {
+        Set<ConstraintViolation<T>> violations = validator.validate(body);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return body;
+    }
+
+    /**
+     * Same defaults as the servlet PageableHandlerMethodArgumentResolver: page 0 of 5, size capped at max-size.
+     */
+    private Pageable pageable(ServerRequest request) {
+        int page = request.queryParam("page").map(AnimeHandler::parseInt).filter(value -> value >= 0)
+                .orElse(FALLBACK_PAGEABLE.getPageNumber());
+        int size = request.queryParam("size").map(AnimeHandler::parseInt).filter(value -> value > 0)
+                .orElse(FALLBACK_PAGEABLE.getPageSize());
+        return PageRequest.of(page, Math.min(size, maxPageSize));
+    }
+
+    private String toJsonLine(Anime anime) {
+        try {
+            return animeWriter.writeValueAsString(anime) + "\n";
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long id(ServerRequest request) {
+        return parseLong(request.pathVariable("id"));
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("'" + value + "' is not a number");
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("'" + value + "' is not a number");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package academy.devdojo.springboot2.controller;
+
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.exception.BadRequestExceptionDetails;
+import academy.devdojo.springboot2.exception.ExceptionDetails;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
+import academy.devdojo.springboot2.exception.ValidationexceptionDetails;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
+
+/**
+ * Routes of the reactive stack, the same paths as {@link AnimeController}. More specific routes come first,
+ * /animes/{id} would match /animes/all otherwise. Errors get the bodies of the servlet RestExceptionHandler.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class AnimeRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> animeRoutes(AnimeHandler animeHandler) {
+        return RouterFunctions.route()
+                .GET("/animes", queryParam("limit", limit -> true).or(queryParam("after", after -> true)),
+                        animeHandler::listByCursor)
+                .GET("/animes", animeHandler::list)
+                .GET("/animes/all", accept(AnimeHandler.APPLICATION_NDJSON), animeHandler::streamAll)
+                .GET("/animes/all", animeHandler::listAll)
+                .GET("/animes/by-id/{id}", animeHandler::findByIdAuthenticationPrincipal)
+                .GET("/animes/find", animeHandler::findByName)
+                .GET("/animes/search", animeHandler::search)
+                .GET("/animes/{id}", animeHandler::findById)
+                .POST("/animes/batch", animeHandler::saveAll)
+                .POST("/animes", animeHandler::save)
+                .PUT("/animes", animeHandler::replace)
+                .PATCH("/animes/{id}", animeHandler::update)
+                .DELETE("/animes/admin", queryParam("ids", ids -> true), animeHandler::deleteAll)
+                .DELETE("/animes/admin/{id}", animeHandler::delete)
+                .onError(BadRequestException.class, (exception, request) -> badRequest(exception))
+                .onError(ConstraintViolationException.class, (exception, request) -> invalidFields(exception))
+                .onError(ServerWebInputException.class, (exception, request) -> badRequest(exception))
+                .onError(exception -> exception instanceof PreconditionFailedException
+                                || exception instanceof OptimisticLockingFailureException,
+                        (exception, request) -> preconditionFailed(exception))
+                // innermost, so an exception thrown while a handler builds its Mono reaches onError too
+                .filter((request, next) -> Mono.defer(() -> next.handle(request)))
+                .build();
+    }
+
+    private static Mono<ServerResponse> badRequest(Throwable exception) {
+        return ServerResponse.badRequest().bodyValue(BadRequestExceptionDetails.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.BAD_REQUEST.value())
+                .title("Bad Request Exception, Check the documentation")
+                .details(exception.getMessage())
+                .developerMessage(exception.getClass().getName())
+                .build());
+    }
+
+    private static Mono<ServerResponse> invalidFields(ConstraintViolationException exception) {
+        String fields = exception.getConstraintViolations().stream()
+                .map(violation -> violation.getPropertyPath().toString())
+                .collect(Collectors.joining(", "));
+        String fieldsMessage = exception.getConstraintViolations().stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining(", "));
+
+        return ServerResponse.badRequest().bodyValue(ValidationexceptionDetails.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.BAD_REQUEST.value())
+                .title("Bad Request Exception, Invalid Fields")
+                .details(exception.getMessage())
+                .developerMessage(exception.getClass().getName())
+                .fields(fields)
+                .fieldsMessage(fieldsMessage)
+                .build());
+    }
+
+    private static Mono<ServerResponse> preconditionFailed(Throwable exception) {
+        return ServerResponse.status(HttpStatus.PRECONDITION_FAILED).bodyValue(ExceptionDetails.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.PRECONDITION_FAILED.value())
+                .title("Precondition Failed, the anime was modified by someone else")
+                .details(exception.getMessage())
+                .developerMessage(exception.getClass().getName())
+                .build());
+    }
+}
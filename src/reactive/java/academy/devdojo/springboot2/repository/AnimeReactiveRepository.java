@@ -0,0 +1,90 @@
+package academy.devdojo.springboot2.repository;
+
+import academy.devdojo.springboot2.domain.Anime;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non blocking reads of the anime table for the reactive stack, the same queries {@link AnimeRepository} runs
+ * through JPA. Plain SQL keeps the JPA mapping of {@link Anime} the only one.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class AnimeReactiveRepository {
+    private static final String COLUMNS = "select id, name, version from anime";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Anime> findById(long id) {
+        return databaseClient.execute(COLUMNS + " where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toAnime(row))
+                .one();
+    }
+
+    public Flux<Anime> findByName(String name) {
+        return databaseClient.execute(COLUMNS + " where name = :name")
+                .bind("name", name)
+                .map((row, metadata) -> toAnime(row))
+                .all();
+    }
+
+    public Flux<Anime> findAll() {
+        return databaseClient.execute(COLUMNS)
+                .map((row, metadata) -> toAnime(row))
+                .all();
+    }
+
+    public Flux<Anime> findPage(long offset, int size) {
+        return databaseClient.execute(COLUMNS + " order by id limit :limit offset :offset")
+                .bind("limit", size)
+                .bind("offset", offset)
+                .map((row, metadata) -> toAnime(row))
+                .all();
+    }
+
+    public Flux<Anime> findByIdGreaterThanOrderByIdAsc(long id, int limit) {
+        return databaseClient.execute(COLUMNS + " where id > :id order by id limit :limit")
+                .bind("id", id)
+                .bind("limit", limit)
+                .map((row, metadata) -> toAnime(row))
+                .all();
+    }
+
+    public Mono<Long> count() {
+        return databaseClient.execute("select count(*) as total from anime")
+                .map((row, metadata) -> number(row, "total"))
+                .one();
+    }
+
+    /**
+     * Same fingerprint as {@link AnimeRepository#findTableVersion()}.
+     */
+    public Mono<String> findTableVersion() {
+        return databaseClient.execute("select count(*) as total, coalesce(sum(id), 0) as id_sum,"
+                + " coalesce(sum(version), 0) as version_sum from anime")
+                .map((row, metadata) -> number(row, "total") + "-" + number(row, "id_sum") + "-" + number(row, "version_sum"))
+                .one();
+    }
+
+    private static Anime toAnime(Row row) {
+        return Anime.builder()
+                .id(row.get("id", Long.class))
+                .name(row.get("name", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+
+    /**
+     * Drivers disagree on the type of count and sum, BIGINT on one and DECIMAL on another.
+     */
+    private static long number(Row row, String column) {
+        return ((Number) row.get(column)).longValue();
+    }
+}
@@ -0,0 +1,118 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.repository.AnimeReactiveRepository;
+import academy.devdojo.springboot2.requests.AnimePatchRequestBody;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.responses.AnimeBatchResponse;
+import academy.devdojo.springboot2.responses.AnimeBulkDeleteResponse;
+import academy.devdojo.springboot2.responses.AnimeCursorPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * {@link AnimeService} for the reactive stack. Reads go through R2DBC and never hold a thread while the database works.
+ * They also bypass the anime cache, the bulkheads and request coalescing, which all wrap the JPA services,
+ * only the R2DBC pool bounds them.
+ * <p>
+ * Writes still run through {@link AnimeService} on the bounded elastic scheduler: ids come from the pooled anime_seq
+ * generator of Hibernate (a table on MySQL), and the service already evicts the cache and publishes the events that
+ * keep the search index current.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class AnimeReactiveService {
+    private final AnimeReactiveRepository animeReactiveRepository;
+    private final AnimeService animeService;
+    private final AnimeBatchService animeBatchService;
+
+    @Value("${devdojo.anime.cursor.max-limit:100}")
+    private int maxCursorLimit;
+
+    public Mono<Page<Anime>> listAll(Pageable pageable) {
+        return animeReactiveRepository.findPage(pageable.getOffset(), pageable.getPageSize())
+                .collectList()
+                .zipWith(animeReactiveRepository.count())
+                .map(animesAndTotal -> new PageImpl<>(animesAndTotal.getT1(), pageable, animesAndTotal.getT2()));
+    }
+
+    /**
+     * Keyset pagination with the cursors of {@link AnimeService#listAfter(String, int)}.
+     */
+    public Mono<AnimeCursorPage> listAfter(String after, int limit) {
+        if (limit < 1) {
+            return Mono.error(new BadRequestException("Limit must be greater than zero"));
+        }
+        int pageSize = Math.min(limit, maxCursorLimit);
+        return Mono.fromCallable(() -> after == null ? 0L : AnimeService.decodeCursor(after))
+                .flatMapMany(afterId -> animeReactiveRepository.findByIdGreaterThanOrderByIdAsc(afterId, pageSize + 1))
+                .collectList()
+                .map(animes -> AnimeService.toCursorPage(animes, pageSize));
+    }
+
+    public Flux<Anime> listAll() {
+        return animeReactiveRepository.findAll();
+    }
+
+    public Mono<String> tableVersion() {
+        return animeReactiveRepository.findTableVersion();
+    }
+
+    public Flux<Anime> findByName(String name) {
+        return animeReactiveRepository.findByName(name);
+    }
+
+    public Mono<Anime> findByIdOrThrowBadRequestException(long id) {
+        return animeReactiveRepository.findById(id)
+                .switchIfEmpty(Mono.error(BadRequestException::animeNotFound));
+    }
+
+    public Mono<Anime> save(AnimePostRequestBody animePostRequestBody) {
+        return blocking(() -> animeService.save(animePostRequestBody));
+    }
+
+    public Mono<AnimeBatchResponse> saveAll(List<AnimePostRequestBody> animePostRequestBodies) {
+        return blocking(() -> animeBatchService.saveAll(animePostRequestBodies));
+    }
+
+    public Mono<Void> delete(long id) {
+        return blocking(() -> {
+            animeService.delete(id);
+            return null;
+        });
+    }
+
+    public Mono<AnimeBulkDeleteResponse> deleteAll(Collection<Long> ids) {
+        return blocking(() -> animeService.deleteAll(ids));
+    }
+
+    /**
+     * @return the new version, empty when no expected version was given
+     */
+    public Mono<Long> replace(AnimePutRequestBody animePutRequestBody, Long expectedVersion) {
+        return blocking(() -> animeService.replace(animePutRequestBody, expectedVersion));
+    }
+
+    public Mono<Long> update(long id, AnimePatchRequestBody animePatchRequestBody, Long expectedVersion) {
+        return blocking(() -> animeService.update(id, animePatchRequestBody, expectedVersion));
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
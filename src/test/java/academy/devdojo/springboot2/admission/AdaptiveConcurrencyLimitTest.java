@@ -0,0 +1,85 @@
+package academy.devdojo.springboot2.admission;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class AdaptiveConcurrencyLimitTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    @DisplayName("tryAcquire rejects when the limit less the reserved permits is in flight")
+    void tryAcquire_Rejects_WhenLimitIsInFlight() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 10, 1.5);
+
+        Assertions.assertThat(limit.tryAcquire(1)).isEqualTo(0);
+        Assertions.assertThat(limit.tryAcquire(1)).isEqualTo(1);
+        Assertions.assertThat(limit.tryAcquire(1)).isEqualTo(2);
+        Assertions.assertThat(limit.tryAcquire(1)).isEqualTo(-1);
+        Assertions.assertThat(limit.tryAcquire(0)).isEqualTo(3);
+        Assertions.assertThat(limit.tryAcquire(0)).isEqualTo(-1);
+
+        limit.release();
+        Assertions.assertThat(limit.getInflight()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("release grows the limit while saturated requests stay as fast as usual")
+    void release_GrowsLimit_WhenLatencyIsSteady() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 4, 100, 1.5);
+
+        sample(limit, 50, FAST);
+
+        Assertions.assertThat(limit.getLimit()).isGreaterThan(10);
+        Assertions.assertThat(limit.getLimit()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("release shrinks the limit when requests get slower than the tolerance")
+    void release_ShrinksLimit_WhenLatencyRises() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 4, 100, 1.5);
+        sample(limit, 200, FAST);
+        int steadyLimit = limit.getLimit();
+
+        sample(limit, 50, SLOW);
+
+        Assertions.assertThat(limit.getLimit()).isLessThan(steadyLimit / 2).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("release cuts the limit multiplicatively when the request was dropped")
+    void release_CutsLimit_WhenRequestIsDropped() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 100, 1.5);
+
+        limit.release(FAST, limit.tryAcquire(0), true);
+
+        Assertions.assertThat(limit.getLimit()).isEqualTo(18);
+        Assertions.assertThat(limit.getInflight()).isZero();
+    }
+
+    @Test
+    @DisplayName("release keeps the limit when far fewer requests than the limit are in flight")
+    void release_KeepsLimit_WhenUnderused() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 100, 1.5);
+
+        for (int i = 0; i < 50; i++) {
+            limit.release(i < 25 ? FAST : SLOW, limit.tryAcquire(0), false);
+        }
+
+        Assertions.assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    /**
+     * Each sample is taken with the whole limit in flight, as under load.
+     */
+    private static void sample(AdaptiveConcurrencyLimit limit, int samples, long rttNanos) {
+        for (int i = 0; i < samples; i++) {
+            int inflight = limit.getLimit() - 1;
+            limit.tryAcquire(0);
+            limit.release(rttNanos, inflight, false);
+        }
+    }
+}
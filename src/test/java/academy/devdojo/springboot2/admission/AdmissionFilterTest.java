@@ -0,0 +1,117 @@
+package academy.devdojo.springboot2.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+class AdmissionFilterTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionProperties admissionProperties;
+    private AtomicLong nanos;
+    private AdmissionFilter admissionFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        admissionProperties = new AdmissionProperties();
+        admissionProperties.setInitialLimit(10);
+        admissionProperties.setMinLimit(1);
+        admissionProperties.setUserQuota(new AdmissionProperties.Quota(2, 1));
+        admissionProperties.setAdminQuota(new AdmissionProperties.Quota(4, 2));
+        nanos = new AtomicLong();
+        admissionFilter = new AdmissionFilter(admissionProperties, meterRegistry, nanos::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("doFilter returns 429 with Retry-After when the user quota is spent")
+    void doFilter_ReturnsTooManyRequests_WhenQuotaIsSpent() throws Exception {
+        authenticate("william", "ROLE_USER");
+
+        Assertions.assertThat(filter("/animes").getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(filter("/animes").getStatus()).isEqualTo(HttpStatus.OK.value());
+        MockHttpServletResponse response = filter("/animes");
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        Assertions.assertThat(meterRegistry.get(AdmissionFilter.REJECTED_COUNTER).tag("reason", "quota")
+                .counter().count()).isEqualTo(1);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertThat(filter("/animes").getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        authenticate("devdojo", "ROLE_USER");
+        Assertions.assertThat(filter("/animes").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    @DisplayName("doFilter gives ROLE_ADMIN users the admin quota")
+    void doFilter_UsesAdminQuota_WhenUserIsAdmin() throws Exception {
+        authenticate("leonardo", "ROLE_USER", "ROLE_ADMIN");
+
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertThat(filter("/animes").getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+        Assertions.assertThat(filter("/animes").getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Test
+    @DisplayName("doFilter returns 503 when the limit is in flight and still admits the admin routes")
+    void doFilter_ReturnsServiceUnavailable_WhenLimitIsInFlight() throws Exception {
+        AdaptiveConcurrencyLimit concurrencyLimit = admissionFilter.getConcurrencyLimit();
+        for (int i = 0; i < 9; i++) {
+            concurrencyLimit.tryAcquire(0);
+        }
+
+        MockHttpServletResponse response = filter("/animes");
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        Assertions.assertThat(meterRegistry.get(AdmissionFilter.REJECTED_COUNTER).tag("reason", "limit")
+                .counter().count()).isEqualTo(1);
+
+        Assertions.assertThat(filter("/animes/admin/1").getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(concurrencyLimit.getInflight()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("doFilter gives the permit back when the request completes and leaves other paths alone")
+    void doFilter_ReleasesPermit_WhenRequestCompletes() throws Exception {
+        FilterChain slowChain = (request, response) -> nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        admissionFilter.doFilter(request, new MockHttpServletResponse(), slowChain);
+
+        Assertions.assertThat(admissionFilter.getConcurrencyLimit().getInflight()).isZero();
+        Assertions.assertThat(meterRegistry.get(AdmissionFilter.LIMIT_GAUGE).gauge().value()).isEqualTo(10);
+        Assertions.assertThat(filter("/actuator/health").getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    private MockHttpServletResponse filter(String uri) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        admissionFilter.doFilter(new MockHttpServletRequest("GET", uri), response, new MockFilterChain());
+        return response;
+    }
+
+    private static void authenticate(String username, String... authorities) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken(username, null, authorities));
+    }
+}
@@ -0,0 +1,120 @@
+package academy.devdojo.springboot2.audit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+class AccessLogFilterTest {
+    private AccessLog accessLogMock;
+    private AccessLogFilter accessLogFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        accessLogMock = Mockito.mock(AccessLog.class);
+        accessLogFilter = new AccessLogFilter(accessLogMock);
+        request = new MockHttpServletRequest("GET", "/animes/all");
+        request.setAsyncSupported(true);
+        response = new MockHttpServletResponse();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "william", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("doFilter records the request with its route, status and principal when it completes")
+    void doFilter_RecordsRequest_WhenRequestCompletes() throws Exception {
+        accessLogFilter.doFilter(request, response, securityChain((servletRequest, servletResponse) -> {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/animes/all");
+            response.setStatus(204);
+        }));
+
+        AccessLogEvent event = recorded();
+        Assertions.assertThat(event.getUri()).isEqualTo("/animes/all");
+        Assertions.assertThat(event.getStatus()).isEqualTo(204);
+        Assertions.assertThat(event.getPrincipal()).isEqualTo(new PrincipalSummary("william", "ROLE_USER"));
+    }
+
+    @Test
+    @DisplayName("doFilter records an audit event without principal when Spring Security answers 401")
+    void doFilter_RecordsAuditEvent_WhenRequestIsUnauthenticated() throws Exception {
+        SecurityContextHolder.clearContext();
+
+        accessLogFilter.doFilter(request, response, securityChain((servletRequest, servletResponse) ->
+                response.sendError(401)));
+
+        AccessLogEvent event = recorded();
+        Assertions.assertThat(event.getType()).isEqualTo(AccessLogEvent.Type.AUDIT);
+        Assertions.assertThat(event.getStatus()).isEqualTo(401);
+        Assertions.assertThat(event.getPrincipal()).isNull();
+    }
+
+    @Test
+    @DisplayName("doFilter records a 500 when the chain throws")
+    void doFilter_Records500_WhenChainThrows() {
+        Assertions.assertThatExceptionOfType(ServletException.class)
+                .isThrownBy(() -> accessLogFilter.doFilter(request, response, (servletRequest, servletResponse) -> {
+                    throw new ServletException("boom");
+                }));
+
+        AccessLogEvent event = recorded();
+        Assertions.assertThat(event.getUri()).isEqualTo(AccessLogFilter.UNKNOWN_URI);
+        Assertions.assertThat(event.getStatus()).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("doFilter records async requests only once they complete, with the final status")
+    void doFilter_RecordsOnCompletion_WhenRequestIsAsync() throws Exception {
+        accessLogFilter.doFilter(request, response, securityChain((servletRequest, servletResponse) ->
+                request.startAsync()));
+        Mockito.verify(accessLogMock, Mockito.never()).record(ArgumentMatchers.any());
+
+        AsyncContext asyncContext = request.getAsyncContext();
+        response.setStatus(503);
+        asyncContext.complete();
+
+        AccessLogEvent event = recorded();
+        Assertions.assertThat(event.getStatus()).isEqualTo(503);
+        Assertions.assertThat(event.getPrincipal().getUsername()).isEqualTo("william");
+    }
+
+    /**
+     * What Spring Security does around the application: the principal is captured inside the chain and the security
+     * context is cleared on the way out.
+     */
+    private static FilterChain securityChain(FilterChain application) {
+        return (servletRequest, servletResponse) -> {
+            try {
+                new PrincipalCaptureFilter().doFilter(servletRequest, servletResponse, application);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        };
+    }
+
+    private AccessLogEvent recorded() {
+        ArgumentCaptor<AccessLogEvent> event = ArgumentCaptor.forClass(AccessLogEvent.class);
+        Mockito.verify(accessLogMock).record(event.capture());
+        return event.getValue();
+    }
+}
@@ -0,0 +1,74 @@
+package academy.devdojo.springboot2.audit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class AccessLogRingBufferTest {
+
+    @Test
+    @DisplayName("offer returns false without blocking when the buffer is full")
+    void offer_ReturnsFalse_WhenBufferIsFull() {
+        AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(3);
+
+        Assertions.assertThat(buffer.capacity()).isEqualTo(4);
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertThat(buffer.offer(i)).isTrue();
+        }
+        Assertions.assertThat(buffer.offer(4)).isFalse();
+
+        List<Integer> drained = new ArrayList<>();
+        Assertions.assertThat(buffer.drain(drained::add, 2)).isEqualTo(2);
+        Assertions.assertThat(buffer.offer(5)).isTrue();
+        buffer.drain(drained::add, 10);
+
+        Assertions.assertThat(drained).containsExactly(0, 1, 2, 3, 5);
+        Assertions.assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("drain hands every element offered by concurrent producers exactly once")
+    void drain_HandsEveryElementOnce_WhenProducersAreConcurrent() throws Exception {
+        int producers = 4;
+        int perProducer = 10_000;
+        AccessLogRingBuffer<Integer> buffer = new AccessLogRingBuffer<>(1024);
+        ExecutorService executorService = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p * perProducer;
+            futures.add(executorService.submit(() -> {
+                start.await();
+                for (int i = first; i < first + perProducer; i++) {
+                    while (!buffer.offer(i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        Set<Integer> drained = new HashSet<>();
+        start.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (drained.size() < producers * perProducer && System.nanoTime() < deadline) {
+            buffer.drain(element -> Assertions.assertThat(drained.add(element)).isTrue(), 256);
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+
+        Assertions.assertThat(drained).hasSize(producers * perProducer);
+    }
+}
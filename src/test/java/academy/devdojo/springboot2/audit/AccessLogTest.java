@@ -0,0 +1,106 @@
+package academy.devdojo.springboot2.audit;
+
+import academy.devdojo.springboot2.security.DevdojoUserDetails;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Duration;
+import java.util.Set;
+
+class AccessLogTest {
+    private static final PrincipalSummary USER = new PrincipalSummary("william", "ROLE_USER");
+
+    private SimpleMeterRegistry meterRegistry;
+    private AccessLog accessLog;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // the writer thread stays idle during the test, drain is called directly
+        accessLog = new AccessLog(meterRegistry, 4, 2, Duration.ofHours(1), 0, Set.of("/animes/{id}"));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        accessLog.close();
+    }
+
+    @Test
+    @DisplayName("record drops and counts events when the buffer is full")
+    void record_CountsDroppedEvents_WhenBufferIsFull() {
+        for (int i = 0; i < 6; i++) {
+            accessLog.record(AccessLogEvent.of("POST", "/animes", "/animes", 201, 1_000, USER));
+        }
+
+        Assertions.assertThat(meterRegistry.get(AccessLog.DROPPED_COUNTER).counter().count()).isEqualTo(2);
+        Assertions.assertThat(meterRegistry.get(AccessLog.BUFFERED_GAUGE).gauge().value()).isEqualTo(4);
+
+        accessLog.drain();
+
+        Assertions.assertThat(meterRegistry.get(AccessLog.WRITTEN_COUNTER).counter().count()).isEqualTo(4);
+        Assertions.assertThat(meterRegistry.get(AccessLog.BUFFERED_GAUGE).gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("record samples out successful reads of sampled uris but keeps errors and writes")
+    void record_SamplesOutSuccessfulReads_WhenUriIsSampled() {
+        accessLog.record(AccessLogEvent.of("GET", "/animes/1", "/animes/{id}", 200, 1_000, USER));
+        accessLog.record(AccessLogEvent.of("GET", "/animes/2", "/animes/{id}", 400, 1_000, USER));
+        accessLog.record(AccessLogEvent.of("GET", "/animes", "/animes", 200, 1_000, USER));
+        accessLog.record(AccessLogEvent.of("DELETE", "/animes/admin/1", "/animes/admin/{id}", 204, 1_000, USER));
+
+        accessLog.drain();
+
+        Assertions.assertThat(meterRegistry.get(AccessLog.WRITTEN_COUNTER).counter().count()).isEqualTo(3);
+        Assertions.assertThat(meterRegistry.get(AccessLog.DROPPED_COUNTER).counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("record keeps every successful read of a sampled uri when sample rate is 1")
+    void record_KeepsEveryRead_WhenSampleRateIsOne() throws InterruptedException {
+        accessLog.close();
+        meterRegistry = new SimpleMeterRegistry();
+        accessLog = new AccessLog(meterRegistry, 16, 16, Duration.ofHours(1), 1, Set.of("/animes/{id}"));
+
+        for (int i = 0; i < 10; i++) {
+            accessLog.record(AccessLogEvent.of("GET", "/animes/" + i, "/animes/{id}", 200, 1_000, USER));
+        }
+
+        Assertions.assertThat(meterRegistry.get(AccessLog.BUFFERED_GAUGE).gauge().value()).isEqualTo(10);
+        Assertions.assertThat(meterRegistry.get(AccessLog.DROPPED_COUNTER).counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("format writes the principal summary without credentials")
+    void format_WritesPrincipalSummaryWithoutCredentials_WhenAuthenticated() {
+        DevdojoUserDetails userDetails = new DevdojoUserDetails("william", "{bcrypt}$2a$10$secret",
+                AuthorityUtils.createAuthorityList("ROLE_ADMIN", "ROLE_USER"));
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                userDetails, "academy", userDetails.getAuthorities());
+
+        String line = AccessLog.format(AccessLogEvent.of("GET", "/animes/by-id/1", "/animes/by-id/{id}", 200,
+                1_500_000, PrincipalSummary.of(authentication)), new StringBuilder()).toString();
+
+        Assertions.assertThat(line)
+                .contains("type=ACCESS method=GET path=/animes/by-id/1 uri=/animes/by-id/{id} status=200 duration_us=1500")
+                .endsWith("user=william authorities=ROLE_ADMIN,ROLE_USER")
+                .doesNotContain("secret", "academy");
+    }
+
+    @Test
+    @DisplayName("of returns null when the request is anonymous")
+    void of_ReturnsNull_WhenRequestIsAnonymous() {
+        AnonymousAuthenticationToken anonymous = new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+        Assertions.assertThat(PrincipalSummary.of(anonymous)).isNull();
+        Assertions.assertThat(PrincipalSummary.of(null)).isNull();
+    }
+}
@@ -0,0 +1,39 @@
+package academy.devdojo.springboot2.audit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.security.Principal;
+
+class PrincipalSummaryTest {
+
+    @Test
+    @DisplayName("of keeps the name and every authority when authenticated")
+    void of_KeepsNameAndAuthorities_WhenAuthenticated() {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                "leonardo", "academy", AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+
+        Assertions.assertThat(PrincipalSummary.of(authentication))
+                .isEqualTo(new PrincipalSummary("leonardo", "ROLE_USER,ROLE_ADMIN"));
+    }
+
+    @Test
+    @DisplayName("of returns null when the authentication is not authenticated yet")
+    void of_ReturnsNull_WhenNotAuthenticated() {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                "leonardo", "academy");
+
+        Assertions.assertThat(PrincipalSummary.of(authentication)).isNull();
+    }
+
+    @Test
+    @DisplayName("of keeps only the name when the principal is not a Spring Security authentication")
+    void of_KeepsOnlyName_WhenPrincipalIsNotAnAuthentication() {
+        Principal principal = () -> "container-user";
+
+        Assertions.assertThat(PrincipalSummary.of(principal)).isEqualTo(new PrincipalSummary("container-user", ""));
+    }
+}
@@ -0,0 +1,124 @@
+package academy.devdojo.springboot2.bulkhead;
+
+import academy.devdojo.springboot2.exception.BulkheadFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class BulkheadAspectTest {
+    private SimpleMeterRegistry meterRegistry;
+    private Workloads workloads;
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        BulkheadProperties bulkheadProperties = new BulkheadProperties();
+        bulkheadProperties.setLimits(Map.of(Bulkhead.READS, limit(), Bulkhead.AUTH, limit()));
+
+        Workloads target = new Workloads();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new BulkheadAspect(bulkheadProperties, meterRegistry));
+        workloads = proxyFactory.getProxy();
+        target.self = workloads;
+        executorService = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("isolate rejects the call when its bulkhead is full and leaves the other bulkheads alone")
+    void isolate_RejectsCall_WhenBulkheadIsFull() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> holder = CompletableFuture.supplyAsync(
+                () -> workloads.blockingRead(entered, release), executorService);
+        Assertions.assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Assertions.assertThatExceptionOfType(BulkheadFullException.class)
+                .isThrownBy(() -> workloads.read())
+                .withMessageContaining(Bulkhead.READS);
+        Assertions.assertThat(workloads.auth()).isEqualTo("auth");
+        Assertions.assertThat(meterRegistry.get(BulkheadAspect.ACTIVE_GAUGE).tag("bulkhead", Bulkhead.READS)
+                .gauge().value()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get(BulkheadAspect.WAIT_TIMER).tag("bulkhead", Bulkhead.READS)
+                .tag("outcome", "rejected").timer().count()).isEqualTo(1);
+
+        release.countDown();
+        Assertions.assertThat(holder.get(5, TimeUnit.SECONDS)).isEqualTo("read");
+        Assertions.assertThat(workloads.read()).isEqualTo("read");
+    }
+
+    @Test
+    @DisplayName("isolate does not take a second permit when the thread already holds the bulkhead")
+    void isolate_DoesNotTakeSecondPermit_WhenThreadAlreadyHoldsBulkhead() {
+        Assertions.assertThat(workloads.nestedRead()).isEqualTo("read");
+    }
+
+    @Test
+    @DisplayName("isolate releases the permit when the method throws")
+    void isolate_ReleasesPermit_WhenMethodThrows() {
+        Assertions.assertThatIllegalStateException().isThrownBy(() -> workloads.failingRead());
+
+        Assertions.assertThat(workloads.read()).isEqualTo("read");
+        Assertions.assertThat(meterRegistry.get(BulkheadAspect.ACTIVE_GAUGE).tag("bulkhead", Bulkhead.READS)
+                .gauge().value()).isZero();
+    }
+
+    private static BulkheadProperties.Limit limit() {
+        BulkheadProperties.Limit limit = new BulkheadProperties.Limit();
+        limit.setMaxConcurrent(1);
+        limit.setAcquireTimeout(Duration.ofMillis(50));
+        return limit;
+    }
+
+    static class Workloads {
+        Workloads self;
+
+        @Bulkhead(Bulkhead.READS)
+        public String read() {
+            return "read";
+        }
+
+        @Bulkhead(Bulkhead.READS)
+        public String blockingRead(CountDownLatch entered, CountDownLatch release) {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "read";
+        }
+
+        @Bulkhead(Bulkhead.READS)
+        public String nestedRead() {
+            return self.read();
+        }
+
+        @Bulkhead(Bulkhead.READS)
+        public String failingRead() {
+            throw new IllegalStateException("Connection is closed");
+        }
+
+        @Bulkhead(Bulkhead.AUTH)
+        public String auth() {
+            return "auth";
+        }
+    }
+}
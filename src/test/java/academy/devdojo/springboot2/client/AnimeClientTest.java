@@ -0,0 +1,122 @@
+package academy.devdojo.springboot2.client;
+
+import academy.devdojo.springboot2.domain.Anime;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the client against a stub server on a random local port.
+ */
+class AnimeClientTest {
+    private HttpServer server;
+    private final AtomicInteger byIdRequests = new AtomicInteger();
+    private final CountDownLatch releaseSlowRequest = new CountDownLatch(1);
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/animes/1", exchange -> {
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            if (byIdRequests.incrementAndGet() == 1) {
+                await(releaseSlowRequest);
+            }
+            respond(exchange, 200, "{\"id\":1,\"name\":\"Hajime no Ippo\",\"version\":0}");
+        });
+        server.createContext("/animes/2", exchange -> respond(exchange, 400, "{\"title\":\"Anime not Found\"}"));
+        server.createContext("/animes", exchange -> {
+            String after = exchange.getRequestURI().getQuery().contains("after=2") ? "2" : null;
+            respond(exchange, 200, after == null
+                    ? "{\"content\":[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}],\"limit\":2,\"nextCursor\":\"2\"}"
+                    : "{\"content\":[{\"id\":3,\"name\":\"c\"}],\"limit\":2,\"nextCursor\":null}");
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSlowRequest.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("findById returns the hedge answer when the first request is slow")
+    void findById_ReturnsHedgeAnswer_WhenFirstRequestIsSlow() {
+        try (AnimeClient animeClient = client(Duration.ofMillis(50))) {
+            Anime anime = animeClient.findById(1);
+
+            Assertions.assertThat(anime.getName()).isEqualTo("Hajime no Ippo");
+            Assertions.assertThat(animeClient.getHedgedRequests()).isEqualTo(1);
+            Assertions.assertThat(authorizations).allMatch(authorization -> authorization.startsWith("Basic "));
+        }
+    }
+
+    @Test
+    @DisplayName("findById throws AnimeClientException with the status when the API answers with an error")
+    void findById_ThrowsAnimeClientException_WhenApiAnswersWithError() {
+        try (AnimeClient animeClient = client(null)) {
+            Assertions.assertThatExceptionOfType(AnimeClientException.class)
+                    .isThrownBy(() -> animeClient.findById(2))
+                    .satisfies(e -> Assertions.assertThat(e.getStatus()).isEqualTo(400));
+        }
+    }
+
+    @Test
+    @DisplayName("iterateAll walks every keyset page when successful")
+    void iterateAll_WalksEveryPage_WhenSuccessful() {
+        try (AnimeClient animeClient = client(null)) {
+            List<Long> ids = new ArrayList<>();
+            Iterator<Anime> animes = animeClient.iterateAll(2);
+            animes.forEachRemaining(anime -> ids.add(anime.getId()));
+
+            Assertions.assertThat(ids).containsExactly(1L, 2L, 3L);
+            Assertions.assertThat(animes.hasNext()).isFalse();
+        }
+    }
+
+    private AnimeClient client(Duration hedgeDelay) {
+        return new AnimeClient(AnimeClientOptions.builder()
+                .baseUrl("http://localhost:" + server.getAddress().getPort())
+                .username("devdojo")
+                .password("academy")
+                .hedgeDelay(hedgeDelay)
+                .build());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package academy.devdojo.springboot2.client.loadgen;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+class OperationMixTest {
+
+    @Test
+    @DisplayName("next picks operations in proportion to their weights")
+    void next_PicksOperationsByWeight_WhenSuccessful(){
+        OperationMix mix = OperationMix.parse("list:70, by-id:30, delete:0");
+        Random random = new Random(42);
+        Map<Operation, Integer> picks = new EnumMap<>(Operation.class);
+
+        for (int i = 0; i < 10_000; i++) {
+            picks.merge(mix.next(random), 1, Integer::sum);
+        }
+
+        Assertions.assertThat(picks).containsOnlyKeys(Operation.LIST, Operation.BY_ID);
+        Assertions.assertThat(picks.get(Operation.LIST) / 10_000.0).isCloseTo(0.7, Offset.offset(0.02));
+    }
+
+    @Test
+    @DisplayName("parse throws IllegalArgumentException when operation is unknown or no weight is positive")
+    void parse_ThrowsIllegalArgumentException_WhenMixIsInvalid(){
+        Assertions.assertThatIllegalArgumentException()
+                .isThrownBy(() -> OperationMix.parse("list:10,browse:5"));
+        Assertions.assertThatIllegalArgumentException()
+                .isThrownBy(() -> OperationMix.parse("list:0"));
+    }
+
+    @Test
+    @DisplayName("parse reads durations, rate and users when options are given")
+    void parse_ReadsOptions_WhenArgumentsAreGiven(){
+        LoadOptions options = LoadOptions.parse(new String[]{
+                "--rate=250", "--warmup=500ms", "--duration=2m", "--users=a:x,b:y:z", "--mix=save:1",
+                "--auth=token"});
+
+        Assertions.assertThat(options.isClosedLoop()).isFalse();
+        Assertions.assertThat(options.getWarmup().toMillis()).isEqualTo(500);
+        Assertions.assertThat(options.getDuration().toSeconds()).isEqualTo(120);
+        Assertions.assertThat(options.getUsers()).extracting(LoadOptions.Credentials::getPassword)
+                .containsExactly("x", "y:z");
+        Assertions.assertThat(options.getMix().getWeights()).containsOnlyKeys(Operation.SAVE);
+        Assertions.assertThat(options.getAuth()).isEqualTo(LoadOptions.Auth.TOKEN);
+        Assertions.assertThat(LoadOptions.parse(new String[0]).isClosedLoop()).isTrue();
+        Assertions.assertThat(LoadOptions.parse(new String[0]).getAuth()).isEqualTo(LoadOptions.Auth.BASIC);
+    }
+}
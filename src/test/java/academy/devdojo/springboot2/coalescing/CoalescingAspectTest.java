@@ -0,0 +1,203 @@
+package academy.devdojo.springboot2.coalescing;
+
+import academy.devdojo.springboot2.bulkhead.Bulkhead;
+import academy.devdojo.springboot2.bulkhead.BulkheadAspect;
+import academy.devdojo.springboot2.bulkhead.BulkheadProperties;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.exception.BulkheadFullException;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.service.AnimeService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import util.AnimeCreator;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+class CoalescingAspectTest {
+    private static final int CALLERS = 16;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnimeRepository animeRepositoryMock;
+    private AnimeService animeService;
+    private ExecutorService executorService;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        animeRepositoryMock = Mockito.mock(AnimeRepository.class);
+        release = new CountDownLatch(1);
+        animeService = coalescedAnimeService(Duration.ofSeconds(5), CALLERS);
+        executorService = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException runs one query when the same id is read concurrently")
+    void findById_RunsOneQuery_WhenSameIdIsReadConcurrently() throws Exception {
+        Anime anime = AnimeCreator.createValidAnime();
+        BDDMockito.when(animeRepositoryMock.findById(1L)).then(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(anime);
+        });
+
+        List<CompletableFuture<Anime>> results = callConcurrently(
+                () -> animeService.findByIdOrThrowBadRequestException(1L));
+
+        for (CompletableFuture<Anime> result : results) {
+            Assertions.assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(anime);
+        }
+        Mockito.verify(animeRepositoryMock, Mockito.times(1)).findById(1L);
+        Assertions.assertThat(calls("findByIdOrThrowBadRequestException", "executed")).isEqualTo(1);
+        Assertions.assertThat(calls("findByIdOrThrowBadRequestException", "joined")).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    @DisplayName("findByName runs one query per name and shares its exception with every caller")
+    void findByName_SharesException_WhenQueryFails() throws Exception {
+        BDDMockito.when(animeRepositoryMock.findByName("DBZ")).then(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw new BadRequestException("Query timed out");
+        });
+
+        List<CompletableFuture<List<Anime>>> results = callConcurrently(() -> animeService.findByName("DBZ"));
+
+        for (CompletableFuture<List<Anime>> result : results) {
+            Assertions.assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(BadRequestException.class);
+        }
+        Mockito.verify(animeRepositoryMock, Mockito.times(1)).findByName("DBZ");
+
+        BDDMockito.willReturn(List.of()).given(animeRepositoryMock).findByName("DBZ");
+        Assertions.assertThat(animeService.findByName("DBZ")).isEmpty();
+        Assertions.assertThat(animeService.findByName("Naruto")).isEmpty();
+        Mockito.verify(animeRepositoryMock, Mockito.times(2)).findByName("DBZ");
+    }
+
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException gives joined callers the result when the query outlasts the acquire timeout")
+    void findById_ReturnsResultToJoinedCallers_WhenQueryOutlastsAcquireTimeout() throws Exception {
+        animeService = coalescedAnimeService(Duration.ofMillis(100), 1);
+        Anime anime = AnimeCreator.createValidAnime();
+        CountDownLatch started = new CountDownLatch(1);
+        BDDMockito.when(animeRepositoryMock.findById(1L)).then(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(anime);
+        });
+
+        CompletableFuture<Anime> first = CompletableFuture.supplyAsync(
+                () -> animeService.findByIdOrThrowBadRequestException(1L), executorService);
+        Assertions.assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Anime> joined = CompletableFuture.supplyAsync(
+                () -> animeService.findByIdOrThrowBadRequestException(1L), executorService);
+        Thread.sleep(300);
+        release.countDown();
+
+        Assertions.assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(anime);
+        Assertions.assertThat(joined.get(5, TimeUnit.SECONDS)).isSameAs(anime);
+        Mockito.verify(animeRepositoryMock, Mockito.times(1)).findById(1L);
+        Assertions.assertThat(calls("findByIdOrThrowBadRequestException", "timed-out")).isZero();
+    }
+
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException rejects joined callers when the running call waits for a permit past the acquire timeout")
+    void findById_ThrowsBulkheadFullException_WhenRunningCallWaitsForPermit() throws Exception {
+        animeService = coalescedAnimeService(Duration.ofMillis(300), 1);
+        CountDownLatch started = new CountDownLatch(1);
+        BDDMockito.when(animeRepositoryMock.findByName("Berserk")).then(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        CompletableFuture.runAsync(() -> animeService.findByName("Berserk"), executorService);
+        Assertions.assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Anime> first = CompletableFuture.supplyAsync(
+                () -> animeService.findByIdOrThrowBadRequestException(1L), executorService);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (queued() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        Assertions.assertThatThrownBy(() -> animeService.findByIdOrThrowBadRequestException(1L))
+                .isInstanceOf(BulkheadFullException.class)
+                .hasFieldOrPropertyWithValue("bulkhead", Bulkhead.READS);
+        Assertions.assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(BulkheadFullException.class);
+        Mockito.verify(animeRepositoryMock, Mockito.never()).findById(1L);
+    }
+
+    /**
+     * A fresh registry with each service, the gauges of an earlier bulkhead would shadow the new ones.
+     */
+    private AnimeService coalescedAnimeService(Duration acquireTimeout, int maxConcurrent) {
+        meterRegistry = new SimpleMeterRegistry();
+        BulkheadProperties.Limit limit = new BulkheadProperties.Limit();
+        limit.setAcquireTimeout(acquireTimeout);
+        limit.setMaxConcurrent(maxConcurrent);
+        BulkheadProperties bulkheadProperties = new BulkheadProperties();
+        bulkheadProperties.getLimits().put(Bulkhead.READS, limit);
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new AnimeService(animeRepositoryMock,
+                Mockito.mock(EntityManager.class), Mockito.mock(ApplicationEventPublisher.class)));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new CoalescingAspect(meterRegistry, bulkheadProperties));
+        proxyFactory.addAspect(new BulkheadAspect(bulkheadProperties, meterRegistry));
+        return proxyFactory.getProxy();
+    }
+
+    /**
+     * Starts every caller, waits until all but the first joined its call and only then lets the query finish.
+     */
+    private <T> List<CompletableFuture<T>> callConcurrently(Supplier<T> call) throws InterruptedException {
+        List<CompletableFuture<T>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(CompletableFuture.supplyAsync(call, executorService));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (joined() < CALLERS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        return results;
+    }
+
+    private double joined() {
+        return meterRegistry.find(CoalescingAspect.CALLS_COUNTER).tag("outcome", "joined").counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    private double queued() {
+        return meterRegistry.get(BulkheadAspect.QUEUED_GAUGE).tag("bulkhead", Bulkhead.READS).gauge().value();
+    }
+
+    private double calls(String method, String outcome) {
+        return meterRegistry.get(CoalescingAspect.CALLS_COUNTER)
+                .tags("method", "AnimeService." + method, "outcome", outcome).counter().count();
+    }
+}
@@ -1,9 +1,18 @@
 package academy.devdojo.springboot2.controller;
 
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
+import academy.devdojo.springboot2.requests.AnimePatchRequestBody;
 import academy.devdojo.springboot2.requests.AnimePostRequestBody;
 import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.responses.AnimeBatchItemResult;
+import academy.devdojo.springboot2.responses.AnimeBatchResponse;
+import academy.devdojo.springboot2.responses.AnimeBulkDeleteResponse;
+import academy.devdojo.springboot2.responses.AnimeCursorPage;
+import academy.devdojo.springboot2.service.AnimeBatchService;
+import academy.devdojo.springboot2.service.AnimeSearchService;
 import academy.devdojo.springboot2.service.AnimeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,17 +22,28 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import util.AnimeCreator;
 import util.AnimePostRequestBodyCreator;
 import util.AnimePutRequestBodyCreator;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
     @ExtendWith(SpringExtension.class)
 class AnimeControllerTest {
@@ -33,28 +53,73 @@ class AnimeControllerTest {
     @Mock
     private AnimeService animeServiceMock;
 
+    @Mock
+    private AnimeBatchService animeBatchServiceMock;
+
+    @Mock
+    private AnimeSearchService animeSearchServiceMock;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @BeforeEach
     void setUp(){
         PageImpl<Anime> animePage = new PageImpl<>(List.of(AnimeCreator.createValidAnime()));
         BDDMockito.when(animeServiceMock.listAll(ArgumentMatchers.any()))
                 .thenReturn(animePage);
 
+        BDDMockito.when(animeServiceMock.listAfter(ArgumentMatchers.any(), ArgumentMatchers.anyInt()))
+                .thenReturn(AnimeCursorPage.builder()
+                        .content(List.of(AnimeCreator.createValidAnime()))
+                        .limit(1)
+                        .build());
+
         BDDMockito.when(animeServiceMock.listAllNoPageable())
                 .thenReturn(List.of(AnimeCreator.createValidAnime()));
 
+        BDDMockito.doAnswer(invocation -> {
+            Consumer<Anime> consumer = invocation.getArgument(0);
+            consumer.accept(AnimeCreator.createValidAnime());
+            consumer.accept(AnimeCreator.createValidUpdatedAnime());
+            return null;
+        }).when(animeServiceMock).streamAll(ArgumentMatchers.any());
+
         BDDMockito.when(animeServiceMock.findByIdOrThrowBadRequestException(ArgumentMatchers.anyLong()))
                 .thenReturn(AnimeCreator.createValidAnime());
 
         BDDMockito.when(animeServiceMock.findByName(ArgumentMatchers.anyString()))
                 .thenReturn(List.of(AnimeCreator.createValidAnime()));
 
+        BDDMockito.when(animeSearchServiceMock.search(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenReturn(new PageImpl<>(List.of(AnimeCreator.createValidAnime())));
+
         BDDMockito.when(animeServiceMock.save(ArgumentMatchers.any(AnimePostRequestBody.class)))
                 .thenReturn(AnimeCreator.createValidAnime());
 
-        BDDMockito.doNothing().when(animeServiceMock).replace(ArgumentMatchers.any(AnimePutRequestBody.class));
+        BDDMockito.when(animeBatchServiceMock.saveAll(ArgumentMatchers.anyList()))
+                .thenReturn(AnimeBatchResponse.builder()
+                        .created(1)
+                        .items(List.of(AnimeBatchItemResult.builder()
+                                .index(0)
+                                .status(AnimeBatchItemResult.Status.CREATED)
+                                .id(AnimeCreator.createValidAnime().getId())
+                                .build()))
+                        .build());
+
+        BDDMockito.when(animeServiceMock.replace(ArgumentMatchers.any(AnimePutRequestBody.class), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> next(invocation.getArgument(1)));
+
+        BDDMockito.when(animeServiceMock.update(ArgumentMatchers.anyLong(), ArgumentMatchers.any(AnimePatchRequestBody.class), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> next(invocation.getArgument(2)));
+
+        BDDMockito.when(animeServiceMock.tableVersion())
+                .thenReturn("1-1-0");
 
         BDDMockito.doNothing().when(animeServiceMock).delete(ArgumentMatchers.anyLong());
 
+        BDDMockito.when(animeServiceMock.deleteAll(ArgumentMatchers.anyCollection()))
+                .thenReturn(AnimeBulkDeleteResponse.builder().requested(2).deleted(1).build());
+
     }
 
 
@@ -68,20 +133,63 @@ class AnimeControllerTest {
         Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("listByCursor returns list of anime inside cursor page when succesful")
+    void listByCursor_ReturnsListOfAnimesInsideCursorPage_WhenSuccessful(){
+        String expectedName = AnimeCreator.createValidAnime().getName();
+        AnimeCursorPage animeCursorPage = animeController.listByCursor(null, 1).getBody();
+        Assertions.assertThat(animeCursorPage).isNotNull();
+        Assertions.assertThat(animeCursorPage.getContent()).isNotEmpty().hasSize(1);
+        Assertions.assertThat(animeCursorPage.getContent().get(0).getName()).isEqualTo(expectedName);
+    }
+
     @Test
     @DisplayName("ListAll returns list of anime when succesful")
     void listAll_ReturnsLisOfAnimest_WhenSuccessful(){
         String expectedName = AnimeCreator.createValidAnime().getName();
-        List<Anime> animes = animeController.listAll().getBody();
+        ResponseEntity<List<Anime>> entity = animeController.listAll(webRequest());
+        Assertions.assertThat(entity.getHeaders().getETag()).isEqualTo("W/\"1-1-0\"");
+        List<Anime> animes = entity.getBody();
         Assertions.assertThat(animes).isNotNull().isNotEmpty().hasSize(1);
         Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("ListAll returns not modified without loading animes when If-None-Match is current")
+    void listAll_ReturnsNotModified_WhenIfNoneMatchIsCurrent(){
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes/all");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1-1-0\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<List<Anime>> entity = animeController.listAll(new ServletWebRequest(request, response));
+
+        Assertions.assertThat(entity).isNull();
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        BDDMockito.verify(animeServiceMock, BDDMockito.never()).listAllNoPageable();
+    }
+
+    @Test
+    @DisplayName("streamAll writes one json anime per line when succesful")
+    void streamAll_WritesOneAnimePerLine_WhenSuccessful() throws Exception {
+        StreamingResponseBody body = animeController.streamAll().getBody();
+        Assertions.assertThat(body).isNotNull();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(objectMapper.readValue(lines[0], Anime.class)).isEqualTo(AnimeCreator.createValidAnime());
+        Assertions.assertThat(objectMapper.readValue(lines[1], Anime.class)).isEqualTo(AnimeCreator.createValidUpdatedAnime());
+    }
+
     @Test
     @DisplayName("findById returns anime when succesful")
     void FindById_ReturnsAnime_WhenSuccessful(){
         Long expectedId = AnimeCreator.createValidAnime().getId();
-        Anime anime = animeController.findById(1).getBody();
+        ResponseEntity<Anime> entity = animeController.findById(1);
+        Assertions.assertThat(entity.getHeaders().getETag()).isEqualTo("\"0\"");
+        Anime anime = entity.getBody();
         Assertions.assertThat(anime).isNotNull();
         Assertions.assertThat(anime.getId()).isNotNull().isEqualTo(expectedId);
     }
@@ -104,6 +212,16 @@ class AnimeControllerTest {
         Assertions.assertThat(animes).isNotNull().isEmpty();
     }
 
+    @Test
+    @DisplayName("search returns page of ranked animes when succesful")
+    void Search_ReturnsPageOfAnimes_WhenSuccessful(){
+        String expectedName = AnimeCreator.createValidAnime().getName();
+        Page<Anime> animePage = animeController.search("Anime", PageRequest.of(0, 10)).getBody();
+        Assertions.assertThat(animePage).isNotNull();
+        Assertions.assertThat(animePage.toList()).isNotEmpty().hasSize(1);
+        Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
+    }
+
     @Test
     @DisplayName("save returns anime when succesful")
     void Save_ReturnsAnime_WhenSuccessful(){
@@ -111,18 +229,54 @@ class AnimeControllerTest {
         Assertions.assertThat(anime).isNotNull().isEqualTo(AnimeCreator.createValidAnime());
     }
 
+    @Test
+    @DisplayName("saveAll returns batch response with created status when succesful")
+    void SaveAll_ReturnsBatchResponse_WhenSuccessful(){
+        ResponseEntity<AnimeBatchResponse> entity = animeController.saveAll(
+                List.of(AnimePostRequestBodyCreator.createAnimePostRequestBody()));
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        Assertions.assertThat(entity.getBody()).isNotNull();
+        Assertions.assertThat(entity.getBody().getCreated()).isEqualTo(1);
+        Assertions.assertThat(entity.getBody().getItems().get(0).getId()).isEqualTo(AnimeCreator.createValidAnime().getId());
+    }
+
     @Test
     @DisplayName("replace update anime when succesful")
     void Replace_ReturnsAnime_WhenSuccessful(){
-        Assertions.assertThatCode(() -> animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody()))
+        Assertions.assertThatCode(() -> animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), null))
                 .doesNotThrowAnyException();
 
-        ResponseEntity<Void> entity = animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody());
+        ResponseEntity<Void> entity = animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), null);
 
         Assertions.assertThat(entity).isNotNull();
         Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    @Test
+    @DisplayName("replace passes the If-Match version to the service when succesful")
+    void Replace_PassesExpectedVersion_WhenIfMatchIsPresent(){
+        animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), "\"4\"");
+
+        BDDMockito.verify(animeServiceMock).replace(ArgumentMatchers.any(AnimePutRequestBody.class), ArgumentMatchers.eq(4L));
+    }
+
+    @Test
+    @DisplayName("update returns no content with the next ETag when If-Match is present")
+    void Update_ReturnsNextETag_WhenIfMatchIsPresent(){
+        ResponseEntity<Void> entity = animeController.update(1, AnimePatchRequestBody.builder().name("Overlord").build(), "\"4\"");
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        Assertions.assertThat(entity.getHeaders().getETag()).isEqualTo("\"5\"");
+    }
+
+    @Test
+    @DisplayName("replace throws PreconditionFailedException when If-Match is not a strong ETag")
+    void Replace_ThrowsPreconditionFailedException_WhenIfMatchIsWeak(){
+        Assertions.assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), "W/\"4\""));
+    }
+
     @Test
     @DisplayName("delete removes anime when succesful")
     void Delete_RemovesAnime_WhenSuccessful(){
@@ -134,4 +288,22 @@ class AnimeControllerTest {
         Assertions.assertThat(entity).isNotNull();
         Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("deleteAll returns the number of deleted animes when succesful")
+    void DeleteAll_ReturnsDeletedCount_WhenSuccessful(){
+        ResponseEntity<AnimeBulkDeleteResponse> entity = animeController.deleteAll(List.of(1L, 2L));
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(entity.getBody()).isNotNull();
+        Assertions.assertThat(entity.getBody().getDeleted()).isEqualTo(1);
+    }
+
+    private static Long next(Long expectedVersion) {
+        return expectedVersion == null ? null : expectedVersion + 1;
+    }
+
+    private static WebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/animes/all"), new MockHttpServletResponse());
+    }
+}
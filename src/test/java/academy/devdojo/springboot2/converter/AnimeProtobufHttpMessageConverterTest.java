@@ -0,0 +1,88 @@
+package academy.devdojo.springboot2.converter;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.ExceptionDetails;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import wrapper.PageableResponse;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+class AnimeProtobufHttpMessageConverterTest {
+    private static final MediaType PROTOBUF = AnimeProtobufHttpMessageConverter.APPLICATION_PROTOBUF;
+    private static final Type ANIME_LIST = new ParameterizedTypeReference<List<Anime>>() {
+    }.getType();
+    private static final Type ANIME_PAGE = new ParameterizedTypeReference<PageableResponse<Anime>>() {
+    }.getType();
+
+    private final AnimeProtobufHttpMessageConverter converter = new AnimeProtobufHttpMessageConverter();
+
+    @Test
+    @DisplayName("write encodes an anime as the Anime message of anime.proto")
+    void write_EncodesAnimeMessage_WhenSuccessful() throws IOException {
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        converter.write(new Anime(1L, "Ippo", 0L), Anime.class, PROTOBUF, outputMessage);
+
+        // id = 1 (varint), name = 2 (length delimited), version = 3 (varint)
+        Assertions.assertThat(outputMessage.getBodyAsBytes())
+                .containsExactly(0x08, 0x01, 0x12, 0x04, 'I', 'p', 'p', 'o', 0x18, 0x00);
+        Assertions.assertThat(outputMessage.getHeaders().getContentType()).isEqualTo(PROTOBUF);
+    }
+
+    @Test
+    @DisplayName("read returns the page that was written, nulls included")
+    void read_ReturnsWrittenPage_WhenSuccessful() throws IOException {
+        List<Anime> animes = List.of(new Anime(1L, "Ippo", 0L), new Anime(2L, null, 3L));
+        Page<Anime> page = new PageImpl<>(animes, PageRequest.of(1, 2), 10);
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        converter.write(page, ANIME_PAGE, PROTOBUF, outputMessage);
+        Object read = converter.read(ANIME_PAGE, null, new MockHttpInputMessage(outputMessage.getBodyAsBytes()));
+
+        Assertions.assertThat(read).isInstanceOf(PageableResponse.class);
+        PageableResponse<?> readPage = (PageableResponse<?>) read;
+        Assertions.assertThat(readPage.getContent()).isEqualTo(animes);
+        Assertions.assertThat(readPage.getNumber()).isEqualTo(1);
+        Assertions.assertThat(readPage.getSize()).isEqualTo(2);
+        Assertions.assertThat(readPage.getTotalElements()).isEqualTo(10);
+        Assertions.assertThat(readPage.getTotalPages()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("read returns the list that was written")
+    void read_ReturnsWrittenList_WhenSuccessful() throws IOException {
+        List<Anime> animes = List.of(new Anime(1L, "Ippo", 0L), new Anime(2L, "Kingdom", 1L));
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        converter.write(animes, ANIME_LIST, PROTOBUF, outputMessage);
+
+        Assertions.assertThat(converter.read(ANIME_LIST, null, new MockHttpInputMessage(outputMessage.getBodyAsBytes())))
+                .isEqualTo(animes);
+        Assertions.assertThat(converter.read(Anime[].class, null, new MockHttpInputMessage(outputMessage.getBodyAsBytes())))
+                .isEqualTo(animes.toArray(new Anime[0]));
+    }
+
+    @Test
+    @DisplayName("canWrite returns false for bodies other than animes, lists and pages of them")
+    void canWrite_ReturnsFalse_WhenBodyIsNotAnAnime() {
+        Type stringPage = new ParameterizedTypeReference<Page<String>>() {
+        }.getType();
+
+        Assertions.assertThat(converter.canWrite(ANIME_PAGE, PageableResponse.class, PROTOBUF)).isTrue();
+        Assertions.assertThat(converter.canWrite(ANIME_LIST, List.class, PROTOBUF)).isTrue();
+        Assertions.assertThat(converter.canWrite(stringPage, Page.class, PROTOBUF)).isFalse();
+        Assertions.assertThat(converter.canWrite(ExceptionDetails.class, ExceptionDetails.class, PROTOBUF)).isFalse();
+        Assertions.assertThat(converter.canWrite(Anime.class, Anime.class, MediaType.APPLICATION_JSON)).isFalse();
+    }
+}
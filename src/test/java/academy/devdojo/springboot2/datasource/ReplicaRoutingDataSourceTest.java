@@ -0,0 +1,127 @@
+package academy.devdojo.springboot2.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+class ReplicaRoutingDataSourceTest {
+    private DataSource primary;
+    private DataSource replica;
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private SimpleMeterRegistry meterRegistry;
+    private String currentUser;
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = Mockito.mock(DataSource.class);
+        replica = Mockito.mock(DataSource.class);
+        primaryConnection = Mockito.mock(Connection.class);
+        replicaConnection = Mockito.mock(Connection.class);
+        BDDMockito.when(primary.getConnection()).thenReturn(primaryConnection);
+        BDDMockito.when(replica.getConnection()).thenReturn(replicaConnection);
+        meterRegistry = new SimpleMeterRegistry();
+        currentUser = "william";
+        // the health checker stays idle during the test, checkHealth is called directly
+        replicaRoutingDataSource = new ReplicaRoutingDataSource(primary, Map.of("replica-1", replica),
+                Duration.ofMinutes(1), Duration.ofHours(1), () -> currentUser, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        replicaRoutingDataSource.close();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("getConnection routes to a replica when the transaction is read-only")
+    void getConnection_RoutesToReplica_WhenTransactionIsReadOnly() throws SQLException {
+        Assertions.assertThat(connectionIn(true)).isSameAs(replicaConnection);
+        Assertions.assertThat(connectionIn(false)).isSameAs(primaryConnection);
+        Assertions.assertThat(routed("replica-1")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("getConnection routes to the primary and takes the replica out when it fails to connect")
+    void getConnection_RoutesToPrimary_WhenReplicaFailsToConnect() throws SQLException {
+        BDDMockito.when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        Assertions.assertThat(connectionIn(true)).isSameAs(primaryConnection);
+        Assertions.assertThat(replicaRoutingDataSource.isHealthy("replica-1")).isFalse();
+
+        Assertions.assertThat(connectionIn(true)).isSameAs(primaryConnection);
+        Assertions.assertThat(routed("replica-1")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("checkHealth puts the replica back when its connection is valid again")
+    void checkHealth_PutsReplicaBack_WhenConnectionIsValid() throws SQLException {
+        BDDMockito.when(replicaConnection.isValid(BDDMockito.anyInt())).thenReturn(false);
+        replicaRoutingDataSource.checkHealth();
+        Assertions.assertThat(replicaRoutingDataSource.isHealthy("replica-1")).isFalse();
+        Assertions.assertThat(meterRegistry.get(ReplicaRoutingDataSource.REPLICA_HEALTHY_GAUGE).gauge().value())
+                .isZero();
+
+        BDDMockito.when(replicaConnection.isValid(BDDMockito.anyInt())).thenReturn(true);
+        replicaRoutingDataSource.checkHealth();
+        Assertions.assertThat(replicaRoutingDataSource.isHealthy("replica-1")).isTrue();
+        Assertions.assertThat(connectionIn(true)).isSameAs(replicaConnection);
+    }
+
+    @Test
+    @DisplayName("getConnection keeps the reads of a user on the primary when they wrote within the window")
+    void getConnection_RoutesToPrimary_WhenUserWroteWithinWindow() throws SQLException {
+        TransactionSynchronizationManager.initSynchronization();
+        connectionIn(false);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        Assertions.assertThat(connectionIn(true)).isSameAs(primaryConnection);
+
+        currentUser = "devdojo";
+        Assertions.assertThat(connectionIn(true)).isSameAs(replicaConnection);
+    }
+
+    @Test
+    @DisplayName("getConnection routes read-only transactions to the primary when the thread reads from the primary")
+    void getConnection_RoutesToPrimary_WhenReadFromPrimary() throws SQLException {
+        boolean previous = ReplicaRoutingDataSource.readFromPrimary(true);
+        try {
+            Assertions.assertThat(connectionIn(true)).isSameAs(primaryConnection);
+        } finally {
+            ReplicaRoutingDataSource.readFromPrimary(previous);
+        }
+
+        Assertions.assertThat(connectionIn(true)).isSameAs(replicaConnection);
+    }
+
+    /**
+     * The routed connection is only fetched on first use, the target of the lazy proxy is that first use.
+     */
+    private Connection connectionIn(boolean readOnlyTransaction) throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnlyTransaction);
+        return ((ConnectionProxy) replicaRoutingDataSource.getConnection()).getTargetConnection();
+    }
+
+    private double routed(String route) {
+        return meterRegistry.get(ReplicaRoutingDataSource.ROUTE_COUNTER).tag("route", route).counter().count();
+    }
+}
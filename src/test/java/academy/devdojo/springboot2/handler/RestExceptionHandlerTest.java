@@ -0,0 +1,67 @@
+package academy.devdojo.springboot2.handler;
+
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.exception.BadRequestExceptionDetails;
+import academy.devdojo.springboot2.exception.BulkheadFullException;
+import academy.devdojo.springboot2.exception.ExceptionDetails;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.context.request.ServletWebRequest;
+
+class RestExceptionHandlerTest {
+    private final RestExceptionHandler restExceptionHandler = new RestExceptionHandler();
+
+    @Test
+    @DisplayName("handleException returns the reason phrase as title when the exception has no cause")
+    void handleException_ReturnsReasonPhraseAsTitle_WhenExceptionHasNoCause() throws Exception {
+        ServletWebRequest webRequest = new ServletWebRequest(
+                new MockHttpServletRequest("PATCH", "/animes"), new MockHttpServletResponse());
+
+        ResponseEntity<Object> responseEntity = restExceptionHandler.handleException(
+                new HttpRequestMethodNotSupportedException("PATCH"), webRequest);
+
+        Assertions.assertThat(responseEntity).isNotNull();
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.METHOD_NOT_ALLOWED);
+        Assertions.assertThat(responseEntity.getBody())
+                .isInstanceOf(ExceptionDetails.class)
+                .extracting("title")
+                .isEqualTo(HttpStatus.METHOD_NOT_ALLOWED.getReasonPhrase());
+    }
+
+    @Test
+    @DisplayName("handleBadRequestException returns details of the shared anime not found exception")
+    void handleBadRequestException_ReturnsDetails_WhenAnimeIsNotFound() {
+        BadRequestException badRequestException = BadRequestException.animeNotFound();
+
+        ResponseEntity<BadRequestExceptionDetails> responseEntity =
+                restExceptionHandler.handleBadRequestException(badRequestException);
+
+        Assertions.assertThat(badRequestException.getStackTrace()).isEmpty();
+        Assertions.assertThat(BadRequestException.animeNotFound()).isSameAs(badRequestException);
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Assertions.assertThat(responseEntity.getBody()).isNotNull();
+        Assertions.assertThat(responseEntity.getBody().getDetails()).isEqualTo("Anime not found");
+        Assertions.assertThat(responseEntity.getBody().getDeveloperMessage())
+                .isEqualTo(BadRequestException.class.getName());
+    }
+
+    @Test
+    @DisplayName("handleBulkheadFullException returns 503 with Retry-After when a bulkhead is full")
+    void handleBulkheadFullException_ReturnsServiceUnavailable_WhenBulkheadIsFull() {
+        ResponseEntity<ExceptionDetails> responseEntity =
+                restExceptionHandler.handleBulkheadFullException(new BulkheadFullException("reads"));
+
+        Assertions.assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        Assertions.assertThat(responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER))
+                .isEqualTo(RestExceptionHandler.RETRY_AFTER_SECONDS);
+        Assertions.assertThat(responseEntity.getBody()).isNotNull();
+        Assertions.assertThat(responseEntity.getBody().getDetails()).contains("reads");
+    }
+}
@@ -1,25 +1,53 @@
 package academy.devdojo.springboot2.integration;
 
+import academy.devdojo.springboot2.admission.AdmissionFilter;
+import academy.devdojo.springboot2.audit.AccessLog;
+import academy.devdojo.springboot2.audit.AccessLogEvent;
+import academy.devdojo.springboot2.audit.PrincipalSummary;
+import academy.devdojo.springboot2.bulkhead.Bulkhead;
+import academy.devdojo.springboot2.bulkhead.BulkheadAspect;
+import academy.devdojo.springboot2.client.AnimeClient;
+import academy.devdojo.springboot2.client.AnimeClientOptions;
+import academy.devdojo.springboot2.coalescing.CoalescingAspect;
 import academy.devdojo.springboot2.domain.Anime;
 import academy.devdojo.springboot2.domain.DevdojoUser;
+import academy.devdojo.springboot2.metrics.LayerTimingAspect;
+import academy.devdojo.springboot2.metrics.SqlStatisticsFilter;
 import academy.devdojo.springboot2.repository.AnimeRepository;
 import academy.devdojo.springboot2.repository.DevdojoUserRepository;
+import academy.devdojo.springboot2.requests.AnimePatchRequestBody;
 import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.responses.AnimeBatchItemResult;
+import academy.devdojo.springboot2.responses.AnimeBatchResponse;
+import academy.devdojo.springboot2.responses.AnimeBulkDeleteResponse;
+import academy.devdojo.springboot2.responses.AnimeCursorPage;
+import academy.devdojo.springboot2.security.TimedPasswordEncoder;
+import academy.devdojo.springboot2.service.AnimeService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.assertj.core.api.Assertions;
+import org.assertj.core.groups.Tuple;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -28,7 +56,15 @@ import util.AnimeCreator;
 import util.AnimePostRequestBodyCreator;
 import wrapper.PageableResponse;
 
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -49,6 +85,12 @@ class AnimeControllerIt {
     @Autowired
     private DevdojoUserRepository devdojoUserRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private AccessLog accessLog;
+
     private static final DevdojoUser USER = DevdojoUser.builder()
             .name("Devdojo Academy")
             .password("{bcrypt}$2a$10$Mi3kzk0W0uEJbzQpL7T44uSxSs9OoPo.sULj8f7xQaamJFTdd.j92")
@@ -103,6 +145,52 @@ class AnimeControllerIt {
         Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("list continues keyset pagination with the default limit when only after is given")
+    void list_ContinuesKeysetPagination_WhenOnlyAfterIsGiven() {
+        animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime secondAnime = animeRepository.save(Anime.builder().name("Berserk").build());
+        devdojoUserRepository.save(USER);
+
+        AnimeCursorPage firstPage = testRestTemplateRoleUser.getForObject("/animes?limit=1", AnimeCursorPage.class);
+        AnimeCursorPage secondPage = testRestTemplateRoleUser.getForObject("/animes?after=" + firstPage.getNextCursor(),
+                AnimeCursorPage.class);
+
+        Assertions.assertThat(secondPage.getLimit()).isEqualTo(AnimeService.DEFAULT_CURSOR_LIMIT);
+        Assertions.assertThat(secondPage.getContent()).extracting(Anime::getId).containsExactly(secondAnime.getId());
+        Assertions.assertThat(secondPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Lists records service, repository, password and Hibernate meters when succesful")
+    void list_RecordsLayerMeters_WhenSuccessful() {
+        animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+
+        testRestTemplateRoleUser.exchange("/animes", HttpMethod.GET,
+                null, new ParameterizedTypeReference<PageableResponse<Anime>>() {
+                });
+
+        Assertions.assertThat(meterRegistry.find(LayerTimingAspect.SERVICE_TIMER)
+                .tags("class", "AnimeService", "method", "listAll", "exception", "none").timer())
+                .isNotNull()
+                .extracting(Timer::count).isEqualTo(1L);
+        Assertions.assertThat(meterRegistry.find(LayerTimingAspect.REPOSITORY_TIMER)
+                .tags("class", "AnimeRepository", "method", "findAll").timer())
+                .isNotNull();
+        Assertions.assertThat(meterRegistry.find(TimedPasswordEncoder.TIMER)
+                .tag("operation", "matches").timer().count()).isPositive();
+        Assertions.assertThat(meterRegistry.find("hibernate.statements").functionCounters()).isNotEmpty();
+        Assertions.assertThat(meterRegistry.find(BulkheadAspect.WAIT_TIMER)
+                .tags("bulkhead", Bulkhead.READS, "outcome", "acquired").timer().count()).isPositive();
+        Assertions.assertThat(meterRegistry.find(BulkheadAspect.WAIT_TIMER)
+                .tags("bulkhead", Bulkhead.AUTH, "outcome", "acquired").timer().count()).isPositive();
+        Assertions.assertThat(meterRegistry.find(AdmissionFilter.LIMIT_GAUGE).gauge()).isNotNull();
+        Assertions.assertThat(meterRegistry.find(AdmissionFilter.INFLIGHT_GAUGE).gauge().value()).isZero();
+        Assertions.assertThat(meterRegistry.find(CoalescingAspect.CALLS_COUNTER)
+                .tags("method", "AnimeService.listAll", "outcome", "executed").counter().count()).isEqualTo(1);
+    }
+
     @Test
     @DisplayName("ListAll returns list of anime when succesful")
     void listAll_ReturnsLisOfAnimest_WhenSuccessful() {
@@ -122,6 +210,77 @@ class AnimeControllerIt {
         Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("ListAll streams animes as newline delimited json when requested")
+    void listAll_StreamsNewlineDelimitedJson_WhenRequested() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, "application/x-ndjson");
+        ResponseEntity<String> response = testRestTemplateRoleUser.exchange("/animes/all", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getHeaders().getContentType()).hasToString("application/x-ndjson");
+        Assertions.assertThat(response.getBody()).isNotNull().hasLineCount(1).contains(savedAnime.getName());
+    }
+
+    @Test
+    @DisplayName("list and listAll answer in the format the client accepts")
+    void list_ReturnsAnimesInAcceptedFormat_WhenFormatIsBinary() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+
+        for (AnimeClientOptions.Format format : AnimeClientOptions.Format.values()) {
+            try (AnimeClient animeClient = new AnimeClient(AnimeClientOptions.builder()
+                    .baseUrl(testRestTemplateRoleUser.getRootUri())
+                    .username("devdojo")
+                    .password("academy")
+                    .format(format)
+                    .build())) {
+                Page<Anime> animePage = animeClient.list(0, 5);
+                Assertions.assertThat(animePage.getContent()).as(format.name()).containsExactly(savedAnime);
+                Assertions.assertThat(animePage.getTotalElements()).as(format.name()).isEqualTo(1);
+                Assertions.assertThat(animeClient.findByName(savedAnime.getName())).as(format.name())
+                        .containsExactly(savedAnime);
+                Assertions.assertThat(animeClient.findById(savedAnime.getId())).as(format.name()).isEqualTo(savedAnime);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("listAll compresses the response when it is above the size threshold")
+    void listAll_CompressesResponse_WhenAboveSizeThreshold() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        }
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+
+        // java.net.http does not decompress, the Content-Encoding stays visible
+        HttpClient httpClient = HttpClient.newHttpClient();
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("devdojo:academy".getBytes(StandardCharsets.UTF_8));
+        HttpResponse<byte[]> all = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(testRestTemplateRoleUser.getRootUri() + "/animes/all"))
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        HttpResponse<byte[]> one = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(testRestTemplateRoleUser.getRootUri() + "/animes/" + savedAnime.getId()))
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        Assertions.assertThat(all.statusCode()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(all.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).contains("gzip");
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(all.body()))) {
+            Assertions.assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8)).contains(savedAnime.getName());
+        }
+        Assertions.assertThat(one.statusCode()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(one.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).isEmpty();
+    }
+
     @Test
     @DisplayName("findById returns anime when succesful")
     void FindById_ReturnsAnime_WhenSuccessful() {
@@ -133,6 +292,27 @@ class AnimeControllerIt {
         Assertions.assertThat(anime.getId()).isNotNull().isEqualTo(expectedId);
     }
 
+    @Test
+    @DisplayName("findById records the SQL statements of the request per endpoint when succesful")
+    void findById_RecordsSqlStatements_WhenSuccessful() throws InterruptedException {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+
+        testRestTemplateRoleUser.getForObject("/animes/{id}", Anime.class, savedAnime.getId());
+
+        // the filter records once the request completes, the client can be done reading the body before that
+        DistributionSummary statements = null;
+        for (int attempt = 0; attempt < 100 && statements == null; attempt++) {
+            Thread.sleep(20);
+            statements = meterRegistry.find(SqlStatisticsFilter.STATEMENTS_SUMMARY)
+                    .tags("method", "GET", "uri", "/animes/{id}").summary();
+        }
+        Assertions.assertThat(statements).isNotNull();
+        Assertions.assertThat(statements.count()).isEqualTo(1);
+        // the user lookup and the anime select
+        Assertions.assertThat(statements.totalAmount()).isGreaterThanOrEqualTo(2);
+    }
+
     @Test
     @DisplayName("findByName returns a list of anime when succesful")
     void FindByName_ReturnsAListOfAnime_WhenSuccessful() {
@@ -169,6 +349,29 @@ class AnimeControllerIt {
         Assertions.assertThat(animeResponseEntity.getBody().getId()).isNotNull();
     }
 
+    @Test
+    @DisplayName("saveAll creates valid animes and reports invalid ones")
+    void SaveAll_CreatesValidAnimesAndReportsInvalidOnes() {
+        devdojoUserRepository.save(USER);
+        List<AnimePostRequestBody> animePostRequestBodies = List.of(
+                AnimePostRequestBodyCreator.createAnimePostRequestBody(),
+                AnimePostRequestBody.builder().name("").build(),
+                AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+        ResponseEntity<AnimeBatchResponse> animeResponseEntity = testRestTemplateRoleUser.postForEntity("/animes/batch",
+                animePostRequestBodies, AnimeBatchResponse.class);
+
+        Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.MULTI_STATUS);
+        Assertions.assertThat(animeResponseEntity.getBody()).isNotNull();
+        Assertions.assertThat(animeResponseEntity.getBody().getCreated()).isEqualTo(2);
+        Assertions.assertThat(animeResponseEntity.getBody().getItems())
+                .extracting(AnimeBatchItemResult::getStatus)
+                .containsExactly(AnimeBatchItemResult.Status.CREATED,
+                        AnimeBatchItemResult.Status.INVALID,
+                        AnimeBatchItemResult.Status.CREATED);
+        Assertions.assertThat(animeRepository.count()).isEqualTo(2);
+    }
+
     @Test
     @DisplayName("replace update anime when succesful")
     void Replace_ReturnsAnime_WhenSuccessful() {
@@ -181,6 +384,101 @@ class AnimeControllerIt {
         Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    @Test
+    @DisplayName("replace returns 400 and keeps the stored name when name is empty or missing")
+    void Replace_Returns400_WhenNameIsEmptyOrMissing() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+
+        ResponseEntity<String> empty = testRestTemplateRoleUser.exchange("/animes", HttpMethod.PUT,
+                new HttpEntity<>(AnimePutRequestBody.builder().id(savedAnime.getId()).name("").build()), String.class);
+        ResponseEntity<String> missing = testRestTemplateRoleUser.exchange("/animes", HttpMethod.PUT,
+                new HttpEntity<>(AnimePutRequestBody.builder().id(savedAnime.getId()).build()), String.class);
+
+        Assertions.assertThat(empty.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Assertions.assertThat(missing.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Assertions.assertThat(animeRepository.findById(savedAnime.getId()))
+                .hasValueSatisfying(anime -> Assertions.assertThat(anime.getName()).isEqualTo(savedAnime.getName()));
+    }
+
+    @Test
+    @DisplayName("findById returns 304 without body when If-None-Match holds the current ETag")
+    void findById_ReturnsNotModified_WhenETagIsCurrent() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+        ResponseEntity<Anime> first = testRestTemplateRoleUser.getForEntity("/animes/{id}", Anime.class, savedAnime.getId());
+        String eTag = first.getHeaders().getETag();
+        Assertions.assertThat(eTag).isEqualTo("\"0\"");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<Anime> second = testRestTemplateRoleUser.exchange("/animes/{id}", HttpMethod.GET,
+                new HttpEntity<>(headers), Anime.class, savedAnime.getId());
+
+        Assertions.assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        Assertions.assertThat(second.getBody()).isNull();
+    }
+
+    @Test
+    @DisplayName("listAll returns 304 until an anime changes")
+    void listAll_ReturnsNotModified_UntilAnAnimeChanges() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+        String eTag = testRestTemplateRoleUser.getForEntity("/animes/all", String.class).getHeaders().getETag();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+
+        ResponseEntity<String> unchanged = testRestTemplateRoleUser.exchange("/animes/all", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        savedAnime.setName("New name");
+        animeRepository.save(savedAnime);
+        ResponseEntity<String> changed = testRestTemplateRoleUser.exchange("/animes/all", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        Assertions.assertThat(unchanged.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        Assertions.assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(changed.getHeaders().getETag()).isNotEqualTo(eTag);
+    }
+
+    @Test
+    @DisplayName("replace returns 412 when If-Match holds a stale ETag")
+    void Replace_Returns412_WhenIfMatchIsStale() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+        savedAnime.setName("New name");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("\"0\"");
+
+        ResponseEntity<Void> first = testRestTemplateRoleUser.exchange("/animes",
+                HttpMethod.PUT, new HttpEntity<>(savedAnime, headers), Void.class);
+        ResponseEntity<Void> second = testRestTemplateRoleUser.exchange("/animes",
+                HttpMethod.PUT, new HttpEntity<>(savedAnime, headers), Void.class);
+
+        Assertions.assertThat(first.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        Assertions.assertThat(first.getHeaders().getETag()).isEqualTo("\"1\"");
+        Assertions.assertThat(second.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        Assertions.assertThat(animeRepository.findById(savedAnime.getId()))
+                .hasValueSatisfying(anime -> Assertions.assertThat(anime.getVersion()).isEqualTo(1L));
+    }
+
+    @Test
+    @DisplayName("update writes the fields present in the body when succesful")
+    void Update_WritesPresentFields_WhenSuccessful() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("\"0\"");
+
+        ResponseEntity<Void> animeResponseEntity = testRestTemplateRoleUser.exchange("/animes/{id}",
+                HttpMethod.PATCH, new HttpEntity<>(AnimePatchRequestBody.builder().name("Overlord").build(), headers),
+                Void.class, savedAnime.getId());
+
+        Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        Assertions.assertThat(animeResponseEntity.getHeaders().getETag()).isEqualTo("\"1\"");
+        Assertions.assertThat(animeRepository.findById(savedAnime.getId()))
+                .hasValueSatisfying(anime -> Assertions.assertThat(anime.getName()).isEqualTo("Overlord"));
+    }
+
     @Test
     @DisplayName("delete removes anime when succesful")
     void Delete_RemovesAnime_WhenSuccessful() {
@@ -191,6 +489,36 @@ class AnimeControllerIt {
         Assertions.assertThat(animeResponseEntity).isNotNull();
         Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
+    @Test
+    @DisplayName("deleteAll removes every listed anime when succesful")
+    void DeleteAll_RemovesListedAnimes_WhenSuccessful() {
+        Anime first = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime second = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime kept = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(ADMIN);
+
+        ResponseEntity<AnimeBulkDeleteResponse> animeResponseEntity = testRestTemplateRoleAdmin.exchange(
+                "/animes/admin?ids={ids}", HttpMethod.DELETE, null, AnimeBulkDeleteResponse.class,
+                first.getId() + "," + second.getId() + ",999999");
+
+        Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(animeResponseEntity.getBody()).isNotNull();
+        Assertions.assertThat(animeResponseEntity.getBody().getRequested()).isEqualTo(3);
+        Assertions.assertThat(animeResponseEntity.getBody().getDeleted()).isEqualTo(2);
+        Assertions.assertThat(animeRepository.findAll()).extracting(Anime::getId).containsExactly(kept.getId());
+    }
+
+    @Test
+    @DisplayName("deleteAll returns 403 when User is not admin")
+    void DeleteAll_Returns403_WhenUserIsNotAdmin() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+        ResponseEntity<Void> animeResponseEntity = testRestTemplateRoleUser.exchange("/animes/admin?ids={ids}",
+                HttpMethod.DELETE, null, Void.class, savedAnime.getId());
+        Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        Assertions.assertThat(animeRepository.count()).isEqualTo(1);
+    }
+
     @Test
     @DisplayName("delete returns 403 when User is not admin")
     void Delete_Returns403_WhenUserIsNotAdmin() {
@@ -202,4 +530,26 @@ class AnimeControllerIt {
         Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
     }
 
+    @Test
+    @DisplayName("access log records requests rejected by Spring Security as audit events")
+    void accessLog_RecordsAuditEvents_WhenSpringSecurityRejectsRequests() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+
+        ResponseEntity<Void> unauthorized = testRestTemplateRoleUser.withBasicAuth("devdojo", "wrong password")
+                .getForEntity("/animes/{id}", Void.class, savedAnime.getId());
+        ResponseEntity<Void> forbidden = testRestTemplateRoleUser.exchange("/animes/admin/{id}",
+                HttpMethod.DELETE, null, Void.class, savedAnime.getId());
+
+        Assertions.assertThat(unauthorized.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        Assertions.assertThat(forbidden.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        ArgumentCaptor<AccessLogEvent> events = ArgumentCaptor.forClass(AccessLogEvent.class);
+        Mockito.verify(accessLog, Mockito.times(2)).record(events.capture());
+        Assertions.assertThat(events.getAllValues())
+                .extracting(AccessLogEvent::getType, AccessLogEvent::getStatus, AccessLogEvent::getPrincipal)
+                .containsExactly(
+                        Tuple.tuple(AccessLogEvent.Type.AUDIT, 401, null),
+                        Tuple.tuple(AccessLogEvent.Type.AUDIT, 403, new PrincipalSummary("devdojo", "ROLE_USER")));
+    }
+
 }
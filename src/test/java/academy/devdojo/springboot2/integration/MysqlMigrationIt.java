@@ -0,0 +1,64 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.service.AnimeService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Upgrades a schema left by ddl-auto, with animes already in it, through the MySQL migrations.
+ * H2 in MySQL mode stands in for MySQL, with the MySQL dialect Hibernate keeps anime_seq in a table.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + MysqlMigrationIt.URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQL57Dialect",
+        "spring.flyway.locations=classpath:db/migration/mysql"
+})
+@DisplayName("MySQL migrations over an existing schema")
+class MysqlMigrationIt {
+    static final String URL = "jdbc:h2:mem:mysql-upgrade;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int EXISTING_ANIMES = 120;
+
+    @Autowired
+    private AnimeService animeService;
+
+    private final JdbcTemplate database = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+
+    @BeforeAll
+    static void createLegacySchema() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        jdbcTemplate.execute("create table anime_seq (next_val bigint)");
+        jdbcTemplate.update("insert into anime_seq (next_val) values (1)");
+        jdbcTemplate.execute("create table anime (id bigint not null, name varchar(255), primary key (id))");
+        jdbcTemplate.execute("create table devdojo_user (id bigint not null auto_increment, authorities varchar(255), " +
+                "name varchar(255), password varchar(255), username varchar(255), primary key (id))");
+        IntStream.rangeClosed(1, EXISTING_ANIMES)
+                .forEach(id -> jdbcTemplate.update("insert into anime (id, name) values (?, ?)", id, "Anime " + id));
+    }
+
+    @Test
+    @DisplayName("save allocates ids above the existing animes after the upgrade")
+    void save_AllocatesIdsAboveExistingAnimes_WhenSchemaWasUpgraded() {
+        Set<Long> ids = IntStream.range(0, 60)
+                .mapToObj(i -> animeService.save(AnimePostRequestBody.builder().name("New anime " + i).build()))
+                .map(Anime::getId)
+                .collect(Collectors.toSet());
+
+        Assertions.assertThat(ids).hasSize(60).allMatch(id -> id > EXISTING_ANIMES);
+        Assertions.assertThat(database.queryForObject("select count(*) from anime", Integer.class))
+                .isEqualTo(EXISTING_ANIMES + 60);
+    }
+}
@@ -0,0 +1,75 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.domain.DevdojoUser;
+import academy.devdojo.springboot2.repository.DevdojoUserRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Runs the hot queries through H2's EXPLAIN on the schema built by the Flyway migrations,
+ * a plan that reads the whole table means an index is missing.
+ */
+@DataJpaTest
+@DisplayName("Query plans of the hot lookup paths")
+class QueryPlanIt {
+    private static final String FULL_SCAN = "tableScan";
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private DevdojoUserRepository devdojoUserRepository;
+
+    @Test
+    @DisplayName("findByName uses an index on anime name")
+    void findByName_UsesIndex_WhenQueryIsPlanned(){
+        Assertions.assertThat(explain("select id, name from anime where name = 'Hajime no Ippo'"))
+                .doesNotContain(FULL_SCAN)
+                .containsIgnoringCase("idx_anime_name");
+    }
+
+    @Test
+    @DisplayName("findByUsername uses the unique index on devdojo_user username")
+    void findByUsername_UsesIndex_WhenQueryIsPlanned(){
+        Assertions.assertThat(explain("select id, authorities, name, password, username from devdojo_user where username = 'devdojo'"))
+                .doesNotContain(FULL_SCAN)
+                .containsIgnoringCase("uk_devdojo_user_username");
+    }
+
+    @Test
+    @DisplayName("findById and the keyset page use the anime primary key")
+    void findByIdAndKeyset_UsePrimaryKey_WhenQueriesArePlanned(){
+        Assertions.assertThat(explain("select id, name from anime where id = 1"))
+                .doesNotContain(FULL_SCAN);
+        Assertions.assertThat(explain("select id, name from anime where id > 100 order by id limit 21"))
+                .doesNotContain(FULL_SCAN);
+    }
+
+    @Test
+    @DisplayName("save throws DataIntegrityViolationException when username already exists")
+    void save_ThrowsDataIntegrityViolationException_WhenUsernameAlreadyExists(){
+        devdojoUserRepository.saveAndFlush(user());
+
+        Assertions.assertThatExceptionOfType(DataIntegrityViolationException.class)
+                .isThrownBy(() -> devdojoUserRepository.saveAndFlush(user()));
+    }
+
+    private String explain(String sql) {
+        return new JdbcTemplate(dataSource).queryForObject("explain " + sql, String.class);
+    }
+
+    private static DevdojoUser user() {
+        return DevdojoUser.builder()
+                .name("DevDojo Academy")
+                .username("devdojo")
+                .password("{noop}academy")
+                .authorities("ROLE_USER")
+                .build();
+    }
+}
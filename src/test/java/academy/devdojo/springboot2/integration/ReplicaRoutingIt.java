@@ -0,0 +1,128 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.datasource.ReplicaRoutingDataSource;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.service.AnimeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Two H2 databases stand in for a primary and its replica. Nothing replicates between them,
+ * so a row tells which database a query went to.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingIt.PRIMARY_URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "devdojo.datasource.replicas[0].url=" + ReplicaRoutingIt.REPLICA_URL,
+        "devdojo.datasource.replicas[0].username=sa"
+})
+@DisplayName("Read replica routing")
+class ReplicaRoutingIt {
+    static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private AnimeService animeService;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "sa", "")
+                .locations("classpath:db/migration/h2")
+                .load()
+                .migrate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primary.update("delete from anime");
+        replica.update("delete from anime");
+    }
+
+    @Test
+    @DisplayName("dataSource is the replica routing one when replicas are configured")
+    void dataSource_IsReplicaRouting_WhenReplicasAreConfigured() throws Exception {
+        Assertions.assertThat(dataSource.isWrapperFor(ReplicaRoutingDataSource.class)).isTrue();
+
+        animeService.findByName("Any");
+
+        Assertions.assertThat(meterRegistry.get("hikaricp.connections").tag("pool", "replica-1").gauge())
+                .isNotNull();
+    }
+
+    @Test
+    @DisplayName("findByName reads from the replica")
+    void findByName_ReadsFromReplica_WhenTransactionIsReadOnly() {
+        replica.update("insert into anime (id, name, version) values (1000000, 'Only on the replica', 0)");
+
+        List<Anime> animes = animeService.findByName("Only on the replica");
+
+        Assertions.assertThat(animes).hasSize(1);
+        Assertions.assertThat(meterRegistry.get(ReplicaRoutingDataSource.ROUTE_COUNTER).tag("route", "replica-1")
+                .counter().count()).isPositive();
+    }
+
+    @Test
+    @DisplayName("save writes to the primary")
+    void save_WritesToPrimary_WhenTransactionIsReadWrite() {
+        animeService.save(AnimePostRequestBody.builder().name("Written to the primary").build());
+
+        Assertions.assertThat(count(primary, "Written to the primary")).isEqualTo(1);
+        Assertions.assertThat(count(replica, "Written to the primary")).isZero();
+    }
+
+    @Test
+    @DisplayName("findByName reads from the primary for the user who just wrote")
+    void findByName_ReadsFromPrimary_WhenUserJustWrote() {
+        authenticate("devdojo");
+        animeService.save(AnimePostRequestBody.builder().name("Read your writes").build());
+
+        Assertions.assertThat(animeService.findByName("Read your writes")).hasSize(1);
+
+        authenticate("leonardo");
+        Assertions.assertThat(animeService.findByName("Read your writes")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException fills the cache from the primary")
+    void findById_ReadsFromPrimary_WhenResultIsCached() {
+        primary.update("insert into anime (id, name, version) values (1000001, 'Not replicated yet', 0)");
+        authenticate("leonardo");
+
+        Anime anime = animeService.findByIdOrThrowBadRequestException(1000001L);
+
+        Assertions.assertThat(anime.getName()).isEqualTo("Not replicated yet");
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null, "ROLE_USER"));
+    }
+
+    private static Integer count(JdbcTemplate jdbcTemplate, String name) {
+        return jdbcTemplate.queryForObject("select count(*) from anime where name = ?", Integer.class, name);
+    }
+}
@@ -0,0 +1,108 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.domain.DevdojoUser;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.repository.DevdojoUserRepository;
+import academy.devdojo.springboot2.responses.TokenResponse;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import util.AnimeCreator;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "devdojo.security.token.enabled=true")
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class TokenAuthenticationIt {
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    @Autowired
+    private DevdojoUserRepository devdojoUserRepository;
+
+    private static final DevdojoUser USER = DevdojoUser.builder()
+            .name("Devdojo Academy")
+            .password("{bcrypt}$2a$10$Mi3kzk0W0uEJbzQpL7T44uSxSs9OoPo.sULj8f7xQaamJFTdd.j92")
+            .username("devdojo")
+            .authorities("ROLE_USER")
+            .build();
+
+    @Test
+    @DisplayName("bearer token authenticates requests without creating a session when successful")
+    void token_AuthenticatesRequestsWithoutSession_WhenSuccessful() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+
+        ResponseEntity<TokenResponse> tokenResponse = testRestTemplate.withBasicAuth("devdojo", "academy")
+                .postForEntity("/auth/token", null, TokenResponse.class);
+        Assertions.assertThat(tokenResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(tokenResponse.getBody()).isNotNull();
+        Assertions.assertThat(tokenResponse.getHeaders().get(HttpHeaders.SET_COOKIE)).isNull();
+
+        ResponseEntity<Anime> animeResponse = testRestTemplate.exchange("/animes/{id}", HttpMethod.GET,
+                bearer(tokenResponse.getBody().getToken()), Anime.class, savedAnime.getId());
+
+        Assertions.assertThat(animeResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(animeResponse.getBody()).isNotNull();
+        Assertions.assertThat(animeResponse.getBody().getId()).isEqualTo(savedAnime.getId());
+        Assertions.assertThat(animeResponse.getHeaders().get(HttpHeaders.SET_COOKIE)).isNull();
+    }
+
+    @Test
+    @DisplayName("bearer token keeps role checks for admin routes")
+    void token_Returns403_WhenUserIsNotAdmin() {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        devdojoUserRepository.save(USER);
+        String token = testRestTemplate.withBasicAuth("devdojo", "academy")
+                .postForObject("/auth/token", null, TokenResponse.class)
+                .getToken();
+
+        ResponseEntity<Void> response = testRestTemplate.exchange("/animes/admin/{id}", HttpMethod.DELETE,
+                bearer(token), Void.class, savedAnime.getId());
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    @DisplayName("invalid bearer token returns 401")
+    void token_Returns401_WhenTokenIsInvalid() {
+        ResponseEntity<Void> response = testRestTemplate.exchange("/animes", HttpMethod.GET,
+                bearer("invalid.token"), Void.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("bearer token cannot be exchanged for a new token and returns 401")
+    void token_Returns401_WhenRenewedWithBearerToken() {
+        devdojoUserRepository.save(USER);
+        String token = testRestTemplate.withBasicAuth("devdojo", "academy")
+                .postForObject("/auth/token", null, TokenResponse.class)
+                .getToken();
+
+        ResponseEntity<TokenResponse> response = testRestTemplate.exchange("/auth/token", HttpMethod.POST,
+                bearer(token), TokenResponse.class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private static HttpEntity<Void> bearer(String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return new HttpEntity<>(headers);
+    }
+}
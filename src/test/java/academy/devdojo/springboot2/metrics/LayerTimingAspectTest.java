@@ -0,0 +1,76 @@
+package academy.devdojo.springboot2.metrics;
+
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.repository.DevdojoUserRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+class LayerTimingAspectTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AnimeRepository animeRepositoryMock;
+    private AnimeRepository animeRepository;
+    private DevdojoUserRepository devdojoUserRepository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        LayerTimingAspect layerTimingAspect = new LayerTimingAspect(meterRegistry);
+        animeRepositoryMock = Mockito.mock(AnimeRepository.class);
+        animeRepository = timed(animeRepositoryMock, layerTimingAspect);
+        devdojoUserRepository = timed(Mockito.mock(DevdojoUserRepository.class), layerTimingAspect);
+    }
+
+    @Test
+    @DisplayName("timeRepository records every call of a method on one timer tagged with the repository interface")
+    void timeRepository_RecordsCallsOnOneTimer_WhenMethodIsCalledRepeatedly() {
+        animeRepository.findByName("Hajime no Ippo");
+        Timer first = timer("AnimeRepository", "findByName", "none");
+        animeRepository.findByName("Berserk");
+
+        Assertions.assertThat(timer("AnimeRepository", "findByName", "none")).isSameAs(first);
+        Assertions.assertThat(first.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("timeRepository keeps inherited methods apart per repository")
+    void timeRepository_TagsInheritedMethodsPerRepository_WhenCalledOnTwoRepositories() {
+        animeRepository.findById(1L);
+        devdojoUserRepository.findById(1L);
+        devdojoUserRepository.findById(2L);
+
+        Assertions.assertThat(timer("AnimeRepository", "findById", "none").count()).isEqualTo(1);
+        Assertions.assertThat(timer("DevdojoUserRepository", "findById", "none").count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("timeRepository tags the exception when the call throws")
+    void timeRepository_TagsException_WhenCallThrows() {
+        BDDMockito.when(animeRepositoryMock.findById(1L)).thenThrow(new IllegalStateException("boom"));
+
+        Assertions.assertThatIllegalStateException().isThrownBy(() -> animeRepository.findById(1L));
+        Assertions.assertThatIllegalStateException().isThrownBy(() -> animeRepository.findById(1L));
+
+        Assertions.assertThat(timer("AnimeRepository", "findById", "IllegalStateException").count()).isEqualTo(2);
+    }
+
+    private Timer timer(String className, String methodName, String exception) {
+        return meterRegistry.get(LayerTimingAspect.REPOSITORY_TIMER)
+                .tag("class", className)
+                .tag("method", methodName)
+                .tag("exception", exception)
+                .timer();
+    }
+
+    private static <T> T timed(T target, LayerTimingAspect layerTimingAspect) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(layerTimingAspect);
+        return proxyFactory.getProxy();
+    }
+}
@@ -0,0 +1,93 @@
+package academy.devdojo.springboot2.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+
+class SqlStatisticsFilterTest {
+    private SimpleMeterRegistry meterRegistry;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        request = new MockHttpServletRequest("GET", "/animes/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/animes/{id}");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    @DisplayName("doFilter records statements and database time per endpoint when successful")
+    void doFilter_RecordsStatementsAndTimePerEndpoint_WhenSuccessful() throws Exception {
+        new SqlStatisticsFilter(meterRegistry, 10, false).doFilter(request, response, statements(3));
+
+        Assertions.assertThat(meterRegistry.get(SqlStatisticsFilter.STATEMENTS_SUMMARY)
+                .tags("method", "GET", "uri", "/animes/{id}").summary().totalAmount()).isEqualTo(3);
+        Assertions.assertThat(meterRegistry.get(SqlStatisticsFilter.TIME_TIMER)
+                .tags("method", "GET", "uri", "/animes/{id}").timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(6);
+        Assertions.assertThat(meterRegistry.find(SqlStatisticsFilter.BUDGET_EXCEEDED_COUNTER).counter()).isNull();
+        Assertions.assertThat(response.getHeader(SqlStatisticsFilter.STATEMENTS_HEADER)).isNull();
+        Assertions.assertThat(SqlStatistics.current()).isNull();
+    }
+
+    @Test
+    @DisplayName("doFilter counts the request as over budget when it runs more statements than allowed")
+    void doFilter_CountsBudgetExceeded_WhenStatementsAreOverBudget() throws Exception {
+        new SqlStatisticsFilter(meterRegistry, 10, false).doFilter(request, response, statements(11));
+
+        Assertions.assertThat(meterRegistry.get(SqlStatisticsFilter.BUDGET_EXCEEDED_COUNTER)
+                .tags("method", "GET", "uri", "/animes/{id}").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("doFilter writes the headers before the body when response header is enabled")
+    void doFilter_WritesHeadersBeforeBody_WhenResponseHeaderIsEnabled() throws Exception {
+        FilterChain filterChain = (servletRequest, servletResponse) -> {
+            statements(2).doFilter(servletRequest, servletResponse);
+            servletResponse.getWriter().write("{}");
+            servletResponse.flushBuffer();
+            statements(5).doFilter(servletRequest, servletResponse);
+        };
+
+        new SqlStatisticsFilter(meterRegistry, 10, true).doFilter(request, response, filterChain);
+
+        Assertions.assertThat(response.getHeader(SqlStatisticsFilter.STATEMENTS_HEADER)).isEqualTo("2");
+        Assertions.assertThat(response.getHeader(SqlStatisticsFilter.TIME_HEADER)).isEqualTo("4");
+        Assertions.assertThat(meterRegistry.get(SqlStatisticsFilter.STATEMENTS_SUMMARY).summary().totalAmount())
+                .isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("doFilter writes the headers when the response has no body")
+    void doFilter_WritesHeaders_WhenResponseHasNoBody() throws Exception {
+        FilterChain filterChain = (servletRequest, servletResponse) -> {
+            statements(1).doFilter(servletRequest, servletResponse);
+            response.setStatus(HttpStatus.NO_CONTENT.value());
+        };
+
+        new SqlStatisticsFilter(meterRegistry, 10, true).doFilter(request, response, filterChain);
+
+        Assertions.assertThat(response.getHeader(SqlStatisticsFilter.STATEMENTS_HEADER)).isEqualTo("1");
+    }
+
+    /**
+     * Stands in for the JDBC proxy, every statement takes 2 ms.
+     */
+    private static FilterChain statements(int count) {
+        return (servletRequest, servletResponse) -> {
+            for (int i = 0; i < count; i++) {
+                SqlStatistics.current().record(TimeUnit.MILLISECONDS.toNanos(2));
+            }
+        };
+    }
+}
@@ -4,22 +4,30 @@ import academy.devdojo.springboot2.domain.Anime;
 import lombok.extern.log4j.Log4j2;
 import org.assertj.core.api.Assert;
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import util.AnimeCreator;
 
+import javax.persistence.EntityManager;
 import javax.validation.ConstraintViolationException;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @DisplayName("Tests for Anime Repositor")
 @Log4j2
 class AnimeRepositoryTest {
     @Autowired
     private AnimeRepository animeRepository;
+    @Autowired
+    private EntityManager entityManager;
 
     @Test
     @DisplayName("Save persists anime when successful")
@@ -76,6 +84,90 @@ class AnimeRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("Find by id greater than returns animes after the given id ordered by id")
+    void findByIdGreaterThanOrderByIdAsc_ReturnsAnimesAfterId_WhenSuccessful(){
+        Anime first = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime second = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime third = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        List<Anime> animes = this.animeRepository.findByIdGreaterThanOrderByIdAsc(first.getId(), PageRequest.of(0, 1));
+
+        Assertions.assertThat(animes).containsExactly(second);
+
+        animes = this.animeRepository.findByIdGreaterThanOrderByIdAsc(second.getId(), PageRequest.of(0, 5));
+
+        Assertions.assertThat(animes).containsExactly(third);
+    }
+
+    @Test
+    @DisplayName("Stream all returns every anime when successful")
+    void streamAll_ReturnsEveryAnime_WhenSuccessful(){
+        Anime animeSaved = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        try (Stream<Anime> animes = this.animeRepository.streamAll()) {
+            Assertions.assertThat(animes.collect(Collectors.toList())).containsExactly(animeSaved);
+        }
+    }
+
+    @Test
+    @DisplayName("updateName changes name and version with a single statement when successful")
+    void updateName_UpdatesWithSingleStatement_WhenSuccessful(){
+        Anime animeSaved = this.animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        int updatedRows = this.animeRepository.updateName(animeSaved.getId(), "Overlord", animeSaved.getVersion());
+
+        Assertions.assertThat(updatedRows).isEqualTo(1);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        Assertions.assertThat(this.animeRepository.findById(animeSaved.getId()))
+                .hasValueSatisfying(anime -> {
+                    Assertions.assertThat(anime.getName()).isEqualTo("Overlord");
+                    Assertions.assertThat(anime.getVersion()).isEqualTo(animeSaved.getVersion() + 1);
+                });
+    }
+
+    @Test
+    @DisplayName("updateName updates no row when version is stale or anime does not exist")
+    void updateName_UpdatesNoRow_WhenVersionIsStaleOrAnimeDoesNotExist(){
+        Anime animeSaved = this.animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+
+        Assertions.assertThat(this.animeRepository.updateName(animeSaved.getId(), "Overlord", animeSaved.getVersion() + 1))
+                .isZero();
+        Assertions.assertThat(this.animeRepository.updateName(animeSaved.getId() + 1, "Overlord"))
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("findIdsByIdIn returns only the ids of existing animes")
+    void findIdsByIdIn_ReturnsExistingIds_WhenSomeIdsDoNotExist(){
+        Anime first = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime second = this.animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+
+        List<Long> ids = this.animeRepository.findIdsByIdIn(List.of(first.getId(), second.getId() + 1));
+
+        Assertions.assertThat(ids).containsExactly(first.getId());
+    }
+
+    @Test
+    @DisplayName("removeByIdIn deletes only the existing animes with a single statement")
+    void removeByIdIn_DeletesExistingAnimes_WhenSuccessful(){
+        Anime first = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime second = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime third = this.animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        int deletedRows = this.animeRepository.removeByIdIn(List.of(first.getId(), third.getId(), third.getId() + 1));
+
+        Assertions.assertThat(deletedRows).isEqualTo(2);
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        Assertions.assertThat(this.animeRepository.findAll()).containsExactly(second);
+    }
+
     @Test
     @DisplayName("Save throw ConstraintViolationException when name is empty")
     void save_ThrowConstraintViolationException_WhenNameIsEmpty(){
@@ -84,7 +176,7 @@ class AnimeRepositoryTest {
 //                .isInstanceOf(ConstraintViolationException.class);
 
         Assertions.assertThatExceptionOfType(ConstraintViolationException.class)
-                .isThrownBy(() -> this.animeRepository.save(anime))
+                .isThrownBy(() -> this.animeRepository.saveAndFlush(anime))
                 .withMessageContaining("The anime name cannot be empty");
 
 
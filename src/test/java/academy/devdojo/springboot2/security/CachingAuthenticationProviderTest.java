@@ -0,0 +1,78 @@
+package academy.devdojo.springboot2.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+class CachingAuthenticationProviderTest {
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+    private AuthenticationCache authenticationCache;
+    @Mock
+    private AuthenticationManager delegateMock;
+
+    @BeforeEach
+    void setUp(){
+        authenticationCache = new AuthenticationCache(60, 100, new SimpleMeterRegistry());
+        cachingAuthenticationProvider = new CachingAuthenticationProvider(delegateMock, authenticationCache);
+
+        BDDMockito.when(delegateMock.authenticate(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> {
+                    Authentication authentication = invocation.getArgument(0);
+                    if (!"academy".equals(authentication.getCredentials())) {
+                        throw new BadCredentialsException("Bad credentials");
+                    }
+                    return new UsernamePasswordAuthenticationToken(authentication.getName(), null,
+                            AuthorityUtils.createAuthorityList("ROLE_USER"));
+                });
+    }
+
+    @Test
+    @DisplayName("authenticate calls the delegate only once when the same credentials are repeated")
+    void authenticate_CallsDelegateOnce_WhenCredentialsAreRepeated(){
+        Authentication first = cachingAuthenticationProvider.authenticate(token("devdojo", "academy"));
+        Authentication second = cachingAuthenticationProvider.authenticate(token("devdojo", "academy"));
+
+        Assertions.assertThat(second.isAuthenticated()).isTrue();
+        Assertions.assertThat(second.getName()).isEqualTo(first.getName());
+        Assertions.assertThat(second.getAuthorities()).isEqualTo(first.getAuthorities());
+        BDDMockito.verify(delegateMock, BDDMockito.times(1)).authenticate(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("authenticate does not accept a cached user with a different password")
+    void authenticate_ThrowsBadCredentialsException_WhenPasswordDiffersFromCachedOne(){
+        cachingAuthenticationProvider.authenticate(token("devdojo", "academy"));
+
+        Assertions.assertThatExceptionOfType(BadCredentialsException.class)
+                .isThrownBy(() -> cachingAuthenticationProvider.authenticate(token("devdojo", "wrong")));
+        BDDMockito.verify(delegateMock, BDDMockito.times(2)).authenticate(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("authenticate calls the delegate again when the cache was invalidated")
+    void authenticate_CallsDelegateAgain_WhenCacheWasInvalidated(){
+        cachingAuthenticationProvider.authenticate(token("devdojo", "academy"));
+
+        authenticationCache.invalidateAll();
+        cachingAuthenticationProvider.authenticate(token("devdojo", "academy"));
+
+        BDDMockito.verify(delegateMock, BDDMockito.times(2)).authenticate(ArgumentMatchers.any());
+    }
+
+    private static UsernamePasswordAuthenticationToken token(String username, String password) {
+        return new UsernamePasswordAuthenticationToken(username, password);
+    }
+}
@@ -0,0 +1,71 @@
+package academy.devdojo.springboot2.security;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+class TokenServiceTest {
+    private static final String SECRET = "c2VjcmV0LXNlY3JldC1zZWNyZXQtc2VjcmV0LXNlY3JldA==";
+    private static final Instant NOW = Instant.parse("2022-06-01T10:00:00Z");
+
+    private final TokenService tokenService = new TokenService(SECRET, 60, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    @DisplayName("verify returns the authentication carried by the token when token is valid")
+    void verify_ReturnsAuthentication_WhenTokenIsValid(){
+        String token = tokenService.issue(authentication());
+
+        Authentication authentication = tokenService.verify(token);
+
+        Assertions.assertThat(authentication).isNotNull();
+        Assertions.assertThat(authentication.isAuthenticated()).isTrue();
+        Assertions.assertThat(authentication.getName()).isEqualTo("leo:nardo");
+        Assertions.assertThat(authentication.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    @DisplayName("verify returns null when token was signed with another secret")
+    void verify_ReturnsNull_WhenTokenWasSignedWithAnotherSecret(){
+        String token = new TokenService("", 60).issue(authentication());
+
+        Assertions.assertThat(tokenService.verify(token)).isNull();
+    }
+
+    @Test
+    @DisplayName("verify returns null when token payload was tampered with")
+    void verify_ReturnsNull_WhenTokenPayloadWasTamperedWith(){
+        String token = tokenService.issue(authentication());
+        String otherToken = tokenService.issue(new UsernamePasswordAuthenticationToken("devdojo", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER")));
+        String tampered = otherToken.substring(0, otherToken.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        Assertions.assertThat(tokenService.verify(tampered)).isNull();
+        Assertions.assertThat(tokenService.verify("not-a-token")).isNull();
+        Assertions.assertThat(tokenService.verify("%%%.%%%")).isNull();
+    }
+
+    @Test
+    @DisplayName("verify returns null when token is expired")
+    void verify_ReturnsNull_WhenTokenIsExpired(){
+        String token = tokenService.issue(authentication());
+        TokenService later = new TokenService(SECRET, 60, Clock.fixed(NOW.plus(Duration.ofSeconds(61)), ZoneOffset.UTC));
+
+        Assertions.assertThat(later.verify(token)).isNull();
+    }
+
+    private static Authentication authentication() {
+        return new UsernamePasswordAuthenticationToken("leo:nardo", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+    }
+}
@@ -0,0 +1,107 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.responses.AnimeBatchItemResult;
+import academy.devdojo.springboot2.responses.AnimeBatchResponse;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import util.AnimePostRequestBodyCreator;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@ExtendWith(SpringExtension.class)
+class AnimeBatchServiceTest {
+    private AnimeBatchService animeBatchService;
+    @Mock
+    private AnimeRepository animeRepositoryMock;
+    @Mock
+    private EntityManager entityManagerMock;
+    @Mock
+    private ApplicationEventPublisher eventPublisherMock;
+
+    @BeforeEach
+    void setUp(){
+        animeBatchService = new AnimeBatchService(animeRepositoryMock, entityManagerMock,
+                Validation.buildDefaultValidatorFactory().getValidator(), eventPublisherMock);
+        ReflectionTestUtils.setField(animeBatchService, "chunkSize", 2);
+        ReflectionTestUtils.setField(animeBatchService, "maxItems", 5);
+
+        AtomicLong ids = new AtomicLong();
+        BDDMockito.when(animeRepositoryMock.saveAll(ArgumentMatchers.anyList()))
+                .thenAnswer(invocation -> {
+                    List<Anime> animes = invocation.getArgument(0);
+                    return animes.stream()
+                            .map(anime -> Anime.builder().id(ids.incrementAndGet()).name(anime.getName()).build())
+                            .collect(Collectors.toList());
+                });
+    }
+
+    @Test
+    @DisplayName("saveAll creates every anime in chunks when successful")
+    void saveAll_CreatesEveryAnimeInChunks_WhenSuccessful(){
+        List<AnimePostRequestBody> animePostRequestBodies = Collections.nCopies(5,
+                AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+        AnimeBatchResponse animeBatchResponse = animeBatchService.saveAll(animePostRequestBodies);
+
+        Assertions.assertThat(animeBatchResponse.getCreated()).isEqualTo(5);
+        Assertions.assertThat(animeBatchResponse.getInvalid()).isZero();
+        Assertions.assertThat(animeBatchResponse.getItems())
+                .extracting(AnimeBatchItemResult::getId)
+                .containsExactly(1L, 2L, 3L, 4L, 5L);
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(3)).saveAll(ArgumentMatchers.anyList());
+        BDDMockito.verify(entityManagerMock, BDDMockito.times(3)).flush();
+        BDDMockito.verify(entityManagerMock, BDDMockito.times(3)).clear();
+    }
+
+    @Test
+    @DisplayName("saveAll reports invalid animes and creates the valid ones when some animes are invalid")
+    void saveAll_ReportsInvalidAnimes_WhenSomeAnimesAreInvalid(){
+        List<AnimePostRequestBody> animePostRequestBodies = new ArrayList<>();
+        animePostRequestBodies.add(AnimePostRequestBodyCreator.createAnimePostRequestBody());
+        animePostRequestBodies.add(AnimePostRequestBody.builder().name("").build());
+        animePostRequestBodies.add(null);
+
+        AnimeBatchResponse animeBatchResponse = animeBatchService.saveAll(animePostRequestBodies);
+
+        Assertions.assertThat(animeBatchResponse.getCreated()).isEqualTo(1);
+        Assertions.assertThat(animeBatchResponse.getInvalid()).isEqualTo(2);
+        Assertions.assertThat(animeBatchResponse.getItems())
+                .extracting(AnimeBatchItemResult::getStatus)
+                .containsExactly(AnimeBatchItemResult.Status.CREATED,
+                        AnimeBatchItemResult.Status.INVALID,
+                        AnimeBatchItemResult.Status.INVALID);
+        Assertions.assertThat(animeBatchResponse.getItems().get(1).getMessage())
+                .isEqualTo("The anime name cannot be empty");
+        Assertions.assertThat(animeBatchResponse.getItems().get(1).getId()).isNull();
+    }
+
+    @Test
+    @DisplayName("saveAll throws BadRequestException when batch is bigger than max items")
+    void saveAll_ThrowsBadRequestException_WhenBatchIsBiggerThanMaxItems(){
+        List<AnimePostRequestBody> animePostRequestBodies = Collections.nCopies(6,
+                AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeBatchService.saveAll(animePostRequestBodies));
+        BDDMockito.verifyNoInteractions(animeRepositoryMock);
+    }
+}
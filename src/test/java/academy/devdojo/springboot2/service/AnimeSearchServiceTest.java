@@ -0,0 +1,117 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.event.AnimeChangedEvent;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@ExtendWith(SpringExtension.class)
+class AnimeSearchServiceTest {
+    private AnimeSearchService animeSearchService;
+    @Mock
+    private AnimeService animeServiceMock;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        animeSearchService = new AnimeSearchService(animeServiceMock, 20);
+
+        List<Anime> animes = List.of(
+                Anime.builder().id(1L).name("Hajime no Ippo").version(3L).build(),
+                Anime.builder().id(2L).name("Shingeki no Kyojin").build(),
+                Anime.builder().id(3L).name("Pokémon").build(),
+                Anime.builder().id(4L).name("Berserk").build());
+        BDDMockito.doAnswer(invocation -> {
+            Consumer<Anime> consumer = invocation.getArgument(0);
+            animes.forEach(consumer);
+            return null;
+        }).when(animeServiceMock).streamAll(ArgumentMatchers.any());
+
+        animeSearchService.rebuild();
+        animeSearchService.awaitIndexing();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        animeSearchService.close();
+    }
+
+    @Test
+    @DisplayName("search returns matching animes when every word matches")
+    void search_ReturnsMatchingAnimes_WhenEveryWordMatches(){
+        Page<Anime> animePage = animeSearchService.search("hajime ippo", PageRequest.of(0, 10));
+
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(1);
+        Assertions.assertThat(animePage.toList().get(0).getId()).isEqualTo(1L);
+        Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo("Hajime no Ippo");
+        Assertions.assertThat(animePage.toList().get(0).getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("search returns animes when text is a prefix of a word")
+    void search_ReturnsAnimes_WhenTextIsAPrefix(){
+        Page<Anime> animePage = animeSearchService.search("shin", PageRequest.of(0, 10));
+
+        Assertions.assertThat(animePage.toList()).extracting(Anime::getId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("search returns animes when text has a typo or no accents")
+    void search_ReturnsAnimes_WhenTextHasTypoOrNoAccents(){
+        Assertions.assertThat(animeSearchService.search("bersrek", PageRequest.of(0, 10)).toList())
+                .extracting(Anime::getId).containsExactly(4L);
+        Assertions.assertThat(animeSearchService.search("POKEMON", PageRequest.of(0, 10)).toList())
+                .extracting(Anime::getId).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("search ranks exact matches before prefix matches")
+    void search_RanksExactMatchesFirst_WhenSuccessful() throws Exception {
+        animeSearchService.onAnimeChanged(AnimeChangedEvent.saved(Anime.builder().id(5L).name("Berserker").build()));
+        animeSearchService.awaitIndexing();
+
+        List<Long> ids = animeSearchService.search("berserk", PageRequest.of(0, 10)).stream()
+                .map(Anime::getId)
+                .collect(Collectors.toList());
+
+        Assertions.assertThat(ids).containsExactly(4L, 5L);
+    }
+
+    @Test
+    @DisplayName("search follows saved and deleted animes after indexing")
+    void search_FollowsChanges_WhenAnimeIsSavedOrDeleted() throws Exception {
+        animeSearchService.onAnimeChanged(AnimeChangedEvent.saved(Anime.builder().id(1L).name("Naruto").build()));
+        animeSearchService.onAnimeChanged(AnimeChangedEvent.deleted(4L));
+        animeSearchService.awaitIndexing();
+
+        Assertions.assertThat(animeSearchService.search("naruto", PageRequest.of(0, 10)).toList())
+                .extracting(Anime::getId).containsExactly(1L);
+        Assertions.assertThat(animeSearchService.search("ippo", PageRequest.of(0, 10)).toList()).isEmpty();
+        Assertions.assertThat(animeSearchService.search("berserk", PageRequest.of(0, 10)).toList()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("search throws BadRequestException when text is blank or page is beyond the window")
+    void search_ThrowsBadRequestException_WhenTextIsBlankOrPageIsTooDeep(){
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeSearchService.search("  ", PageRequest.of(0, 10)));
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeSearchService.search("ippo", PageRequest.of(2, 10)));
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeSearchService.search("ippo", PageRequest.of(Integer.MAX_VALUE, 10)));
+    }
+}
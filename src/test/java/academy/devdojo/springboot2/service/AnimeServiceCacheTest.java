@@ -0,0 +1,107 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.ContextConfiguration;
+import util.AnimeCreator;
+import util.AnimePostRequestBodyCreator;
+import util.AnimePutRequestBodyCreator;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = AnimeServiceCacheTest.Config.class)
+class AnimeServiceCacheTest {
+    @Autowired
+    private AnimeService animeService;
+    @Autowired
+    private CacheManager cacheManager;
+    @MockBean
+    private AnimeRepository animeRepositoryMock;
+    @MockBean
+    private EntityManager entityManagerMock;
+
+    @Configuration
+    @Import({CacheConfig.class, AnimeService.class})
+    static class Config {
+        @Bean
+        public CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.ANIMES_CACHE);
+        }
+    }
+
+    @BeforeEach
+    void setUp(){
+        cacheManager.getCache(CacheConfig.ANIMES_CACHE).clear();
+
+        BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.of(AnimeCreator.createValidAnime()));
+
+        BDDMockito.when(animeRepositoryMock.save(ArgumentMatchers.any(Anime.class)))
+                .thenReturn(AnimeCreator.createValidAnime());
+
+        BDDMockito.when(animeRepositoryMock.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(1);
+
+        BDDMockito.when(animeRepositoryMock.removeById(ArgumentMatchers.anyLong()))
+                .thenReturn(1);
+    }
+
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException reads the repository only once when anime is cached")
+    void findByIdOrThrowBadRequestException_ReadsRepositoryOnce_WhenAnimeIsCached(){
+        Anime first = animeService.findByIdOrThrowBadRequestException(1);
+        Anime second = animeService.findByIdOrThrowBadRequestException(1);
+
+        Assertions.assertThat(second).isEqualTo(first);
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("save puts the saved anime in the cache when successful")
+    void save_PutsAnimeInCache_WhenSuccessful(){
+        Anime savedAnime = animeService.save(AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+        Anime anime = animeService.findByIdOrThrowBadRequestException(savedAnime.getId());
+
+        Assertions.assertThat(anime).isEqualTo(savedAnime);
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never()).findById(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("replace evicts the cached anime when successful")
+    void replace_EvictsCachedAnime_WhenSuccessful(){
+        animeService.findByIdOrThrowBadRequestException(1);
+
+        animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), null);
+
+        Assertions.assertThat(cacheManager.getCache(CacheConfig.ANIMES_CACHE).get(1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("delete evicts the cached anime when successful")
+    void delete_EvictsCachedAnime_WhenSuccessful(){
+        animeService.findByIdOrThrowBadRequestException(1);
+
+        animeService.delete(1);
+
+        Assertions.assertThat(cacheManager.getCache(CacheConfig.ANIMES_CACHE).get(1L)).isNull();
+    }
+}
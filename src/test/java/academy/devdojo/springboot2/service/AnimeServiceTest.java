@@ -1,8 +1,13 @@
 package academy.devdojo.springboot2.service;
 
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.event.AnimeChangedEvent;
 import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
 import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.requests.AnimePatchRequestBody;
+import academy.devdojo.springboot2.responses.AnimeBulkDeleteResponse;
+import academy.devdojo.springboot2.responses.AnimeCursorPage;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,17 +17,23 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import util.AnimeCreator;
 import util.AnimePostRequestBodyCreator;
 import util.AnimePutRequestBodyCreator;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @ExtendWith(SpringExtension.class)
 class AnimeServiceTest {
@@ -30,9 +41,16 @@ class AnimeServiceTest {
     private AnimeService animeService;
     @Mock
     private AnimeRepository animeRepositoryMock;
+    @Mock
+    private EntityManager entityManagerMock;
+    @Mock
+    private ApplicationEventPublisher eventPublisherMock;
 
     @BeforeEach
     void setUp(){
+        ReflectionTestUtils.setField(animeService, "maxCursorLimit", 2);
+        ReflectionTestUtils.setField(animeService, "deleteChunkSize", 2);
+
         PageImpl<Anime> animePage = new PageImpl<>(List.of(AnimeCreator.createValidAnime()));
         BDDMockito.when(animeRepositoryMock.findAll(ArgumentMatchers.any(PageRequest.class)))
                 .thenReturn(animePage);
@@ -40,6 +58,9 @@ class AnimeServiceTest {
         BDDMockito.when(animeRepositoryMock.findAll())
                 .thenReturn(List.of(AnimeCreator.createValidAnime()));
 
+        BDDMockito.when(animeRepositoryMock.streamAll())
+                .thenReturn(Stream.of(AnimeCreator.createValidAnime()));
+
         BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
                 .thenReturn(Optional.of(AnimeCreator.createValidAnime()));
 
@@ -49,7 +70,23 @@ class AnimeServiceTest {
         BDDMockito.when(animeRepositoryMock.save(ArgumentMatchers.any(Anime.class)))
                 .thenReturn(AnimeCreator.createValidAnime());
 
-        BDDMockito.doNothing().when(animeRepositoryMock).delete(ArgumentMatchers.any(Anime.class));
+        BDDMockito.when(animeRepositoryMock.removeById(ArgumentMatchers.anyLong()))
+                .thenReturn(1);
+
+        BDDMockito.when(animeRepositoryMock.findIdsByIdIn(ArgumentMatchers.anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Collection<Long>>getArgument(0)));
+
+        BDDMockito.when(animeRepositoryMock.removeByIdIn(ArgumentMatchers.anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).size());
+
+        BDDMockito.when(animeRepositoryMock.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(1);
+
+        BDDMockito.when(animeRepositoryMock.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString(), ArgumentMatchers.anyLong()))
+                .thenReturn(1);
+
+        BDDMockito.when(animeRepositoryMock.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.anyLong(), ArgumentMatchers.any(PageRequest.class)))
+                .thenReturn(List.of(AnimeCreator.createValidAnime()));
     }
 
 
@@ -69,6 +106,50 @@ class AnimeServiceTest {
         Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("listAfter returns last page without cursor when there are no more animes")
+    void listAfter_ReturnsPageWithoutNextCursor_WhenThereAreNoMoreAnimes(){
+        String expectedName = AnimeCreator.createValidAnime().getName();
+
+        AnimeCursorPage animeCursorPage = animeService.listAfter(null, 2);
+
+        Assertions.assertThat(animeCursorPage).isNotNull();
+        Assertions.assertThat(animeCursorPage.getContent()).isNotEmpty().hasSize(1);
+        Assertions.assertThat(animeCursorPage.getContent().get(0).getName()).isEqualTo(expectedName);
+        Assertions.assertThat(animeCursorPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("listAfter returns next cursor that seeks after the last anime when there are more animes")
+    void listAfter_ReturnsNextCursor_WhenThereAreMoreAnimes(){
+        Anime first = Anime.builder().id(1L).name("Anime 1").build();
+        Anime second = Anime.builder().id(2L).name("Anime 2").build();
+        Anime third = Anime.builder().id(3L).name("Anime 3").build();
+        BDDMockito.when(animeRepositoryMock.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.eq(0L), ArgumentMatchers.any(PageRequest.class)))
+                .thenReturn(List.of(first, second, third));
+        BDDMockito.when(animeRepositoryMock.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.eq(2L), ArgumentMatchers.any(PageRequest.class)))
+                .thenReturn(List.of(third));
+
+        AnimeCursorPage firstPage = animeService.listAfter(null, 10);
+
+        Assertions.assertThat(firstPage.getLimit()).isEqualTo(2);
+        Assertions.assertThat(firstPage.getContent()).containsExactly(first, second);
+        Assertions.assertThat(firstPage.getNextCursor()).isNotNull();
+
+        AnimeCursorPage secondPage = animeService.listAfter(firstPage.getNextCursor(), 10);
+
+        Assertions.assertThat(secondPage.getContent()).containsExactly(third);
+        Assertions.assertThat(secondPage.getNextCursor()).isNull();
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never()).count();
+    }
+
+    @Test
+    @DisplayName("listAfter throws BadRequestException when cursor is invalid")
+    void listAfter_ThrowsBadRequestException_WhenCursorIsInvalid(){
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.listAfter("not a cursor", 2));
+    }
+
     @Test
     @DisplayName("listAllNonPageable returns list of anime when successful")
     void listAllNonPageable_ReturnsListOfAnimes_WhenSuccessful(){
@@ -84,6 +165,18 @@ class AnimeServiceTest {
         Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("streamAll hands every anime to the consumer detached when successful")
+    void streamAll_HandsDetachedAnimesToConsumer_WhenSuccessful(){
+        Anime expectedAnime = AnimeCreator.createValidAnime();
+        List<Anime> animes = new ArrayList<>();
+
+        animeService.streamAll(animes::add);
+
+        Assertions.assertThat(animes).containsExactly(expectedAnime);
+        BDDMockito.verify(entityManagerMock).detach(expectedAnime);
+    }
+
     @Test
     @DisplayName("findByIdOrThrowBadRequestException returns anime when successful")
     void findByIdOrThrowBadRequestException_ReturnsAnime_WhenSuccessful(){
@@ -99,6 +192,9 @@ class AnimeServiceTest {
     @Test
     @DisplayName("findByIdOrThrowBadRequestException throws BadRequestException when anime is not found")
     void findByIdOrThrowBadRequestException_ThrowsBadRequestException_WhenAnimeIsNotFound(){
+        BDDMockito.when(animeRepositoryMock.streamAll())
+                .thenReturn(Stream.of(AnimeCreator.createValidAnime()));
+
         BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
                 .thenReturn(Optional.empty());
 
@@ -149,11 +245,74 @@ class AnimeServiceTest {
     @DisplayName("replace updates anime when successful")
     void replace_UpdatesAnime_WhenSuccessful(){
 
-        Assertions.assertThatCode(() ->animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody()))
+        Assertions.assertThatCode(() ->animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), null))
                 .doesNotThrowAnyException();
 
     }
 
+    @Test
+    @DisplayName("replace returns the next version when expected version matches")
+    void replace_ReturnsNextVersion_WhenExpectedVersionMatches(){
+        Long version = animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), 2L);
+
+        Assertions.assertThat(version).isEqualTo(3L);
+        BDDMockito.verify(animeRepositoryMock).updateName(1L, AnimePutRequestBodyCreator.createAnimePutRequestBody().getName(), 2L);
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never()).findById(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("replace throws PreconditionFailedException when expected version is stale")
+    void replace_ThrowsPreconditionFailedException_WhenExpectedVersionIsStale(){
+        BDDMockito.when(animeRepositoryMock.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString(), ArgumentMatchers.anyLong()))
+                .thenReturn(0);
+        BDDMockito.when(animeRepositoryMock.existsById(ArgumentMatchers.anyLong()))
+                .thenReturn(true);
+
+        Assertions.assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), 2L));
+    }
+
+    @Test
+    @DisplayName("replace throws BadRequestException when no row is updated")
+    void replace_ThrowsBadRequestException_WhenAnimeIsNotFound(){
+        BDDMockito.when(animeRepositoryMock.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(0);
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), null));
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never()).existsById(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("update writes the name when it is present")
+    void update_WritesName_WhenNameIsPresent(){
+        AnimePatchRequestBody animePatchRequestBody = AnimePatchRequestBody.builder().name("Overlord").build();
+
+        Assertions.assertThat(animeService.update(1, animePatchRequestBody, null)).isNull();
+
+        BDDMockito.verify(animeRepositoryMock).updateName(1L, "Overlord");
+    }
+
+    @Test
+    @DisplayName("update throws BadRequestException when the body changes nothing")
+    void update_ThrowsBadRequestException_WhenBodyIsEmpty(){
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.update(1, new AnimePatchRequestBody(), null));
+        BDDMockito.verifyNoInteractions(animeRepositoryMock);
+    }
+
+    @Test
+    @DisplayName("tableVersion changes when the aggregate of the table changes")
+    void tableVersion_ReturnsFingerprintOfTable_WhenSuccessful(){
+        AnimeRepository.TableVersion tableVersion = BDDMockito.mock(AnimeRepository.TableVersion.class);
+        BDDMockito.when(tableVersion.getTotal()).thenReturn(2L);
+        BDDMockito.when(tableVersion.getIdSum()).thenReturn(3L);
+        BDDMockito.when(tableVersion.getVersionSum()).thenReturn(5L);
+        BDDMockito.when(animeRepositoryMock.findTableVersion()).thenReturn(tableVersion);
+
+        Assertions.assertThat(animeService.tableVersion()).isEqualTo("2-3-5");
+    }
+
     @Test
     @DisplayName("delete removes anime when successful")
     void delete_RemovesAnime_WhenSuccessful(){
@@ -161,6 +320,45 @@ class AnimeServiceTest {
         Assertions.assertThatCode(() ->animeService.delete(1))
                 .doesNotThrowAnyException();
 
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never()).findById(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("delete throws BadRequestException when no row is deleted")
+    void delete_ThrowsBadRequestException_WhenAnimeIsNotFound(){
+        BDDMockito.when(animeRepositoryMock.removeById(ArgumentMatchers.anyLong()))
+                .thenReturn(0);
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.delete(1));
+    }
+
+    @Test
+    @DisplayName("deleteAll removes distinct ids in chunks when successful")
+    void deleteAll_RemovesDistinctIdsInChunks_WhenSuccessful(){
+        AnimeBulkDeleteResponse response = animeService.deleteAll(List.of(1L, 2L, 2L, 3L, 4L, 5L));
+
+        Assertions.assertThat(response.getRequested()).isEqualTo(5);
+        Assertions.assertThat(response.getDeleted()).isEqualTo(5);
+        BDDMockito.verify(animeRepositoryMock).removeByIdIn(List.of(1L, 2L));
+        BDDMockito.verify(animeRepositoryMock).removeByIdIn(List.of(3L, 4L));
+        BDDMockito.verify(animeRepositoryMock).removeByIdIn(List.of(5L));
+    }
+
+    @Test
+    @DisplayName("deleteAll publishes deleted events only for the animes that existed")
+    void deleteAll_PublishesEventsOnlyForExistingAnimes_WhenSomeIdsDoNotExist(){
+        BDDMockito.when(animeRepositoryMock.findIdsByIdIn(List.of(1L, 2L))).thenReturn(List.of(2L));
+        BDDMockito.when(animeRepositoryMock.findIdsByIdIn(List.of(3L))).thenReturn(List.of());
+
+        AnimeBulkDeleteResponse response = animeService.deleteAll(List.of(1L, 2L, 3L));
+
+        Assertions.assertThat(response.getRequested()).isEqualTo(3);
+        Assertions.assertThat(response.getDeleted()).isEqualTo(1);
+        BDDMockito.verify(animeRepositoryMock).removeByIdIn(List.of(2L));
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never()).removeByIdIn(List.of(3L));
+        BDDMockito.verify(eventPublisherMock).publishEvent(AnimeChangedEvent.deleted(2L));
+        BDDMockito.verifyNoMoreInteractions(eventPublisherMock);
     }
 
 }
\ No newline at end of file
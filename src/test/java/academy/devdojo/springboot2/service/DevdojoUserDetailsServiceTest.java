@@ -0,0 +1,95 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.domain.DevdojoUser;
+import academy.devdojo.springboot2.repository.DevdojoUserRepository;
+import academy.devdojo.springboot2.security.DevdojoUserDetails;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = DevdojoUserDetailsServiceTest.Config.class)
+class DevdojoUserDetailsServiceTest {
+    @Autowired
+    private DevdojoUserDetailsService devdojoUserDetailsService;
+    @Autowired
+    private CacheManager cacheManager;
+    @MockBean
+    private DevdojoUserRepository devdojoUserRepositoryMock;
+
+    private static final DevdojoUser ADMIN = DevdojoUser.builder()
+            .id(1L)
+            .name("Leonardo Campos")
+            .password("{bcrypt}$2a$10$Mi3kzk0W0uEJbzQpL7T44uSxSs9OoPo.sULj8f7xQaamJFTdd.j92")
+            .username("leonardo")
+            .authorities("ROLE_USER,ROLE_ADMIN")
+            .build();
+
+    @Configuration
+    @Import({CacheConfig.class, DevdojoUserDetailsService.class})
+    static class Config {
+        @Bean
+        public CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.USERS_CACHE);
+        }
+    }
+
+    @BeforeEach
+    void setUp(){
+        cacheManager.getCache(CacheConfig.USERS_CACHE).clear();
+
+        BDDMockito.when(devdojoUserRepositoryMock.findByUsername(ArgumentMatchers.anyString()))
+                .thenReturn(ADMIN);
+    }
+
+    @Test
+    @DisplayName("loadUserByUsername returns an immutable snapshot with parsed authorities when successful")
+    void loadUserByUsername_ReturnsSnapshotWithParsedAuthorities_WhenSuccessful(){
+        UserDetails userDetails = devdojoUserDetailsService.loadUserByUsername("leonardo");
+
+        Assertions.assertThat(userDetails).isInstanceOf(DevdojoUserDetails.class);
+        Assertions.assertThat(userDetails.getUsername()).isEqualTo(ADMIN.getUsername());
+        Assertions.assertThat(userDetails.getPassword()).isEqualTo(ADMIN.getPassword());
+        Assertions.assertThat(userDetails.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER", "ROLE_ADMIN");
+        Assertions.assertThat(userDetails.toString()).doesNotContain(ADMIN.getPassword());
+    }
+
+    @Test
+    @DisplayName("loadUserByUsername reads the repository only once when user is cached")
+    void loadUserByUsername_ReadsRepositoryOnce_WhenUserIsCached(){
+        UserDetails first = devdojoUserDetailsService.loadUserByUsername("leonardo");
+        UserDetails second = devdojoUserDetailsService.loadUserByUsername("leonardo");
+
+        Assertions.assertThat(second).isSameAs(first);
+        BDDMockito.verify(devdojoUserRepositoryMock, BDDMockito.times(1)).findByUsername("leonardo");
+    }
+
+    @Test
+    @DisplayName("loadUserByUsername throws UsernameNotFoundException when user is not found")
+    void loadUserByUsername_ThrowsUsernameNotFoundException_WhenUserIsNotFound(){
+        BDDMockito.when(devdojoUserRepositoryMock.findByUsername(ArgumentMatchers.anyString()))
+                .thenReturn(null);
+
+        Assertions.assertThatExceptionOfType(UsernameNotFoundException.class)
+                .isThrownBy(() -> devdojoUserDetailsService.loadUserByUsername("xaxa"));
+    }
+}
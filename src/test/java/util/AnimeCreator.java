@@ -14,6 +14,7 @@ public class AnimeCreator {
         return Anime.builder()
                 .name("Hajime no Ippo")
                 .id(1L)
+                .version(0L)
                 .build();
     }
 
@@ -21,6 +22,7 @@ public class AnimeCreator {
         return Anime.builder()
                 .name("Hajime no Ippo 2")
                 .id(1L)
+                .version(0L)
                 .build();
     }
 